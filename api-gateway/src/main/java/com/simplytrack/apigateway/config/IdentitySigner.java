@@ -0,0 +1,52 @@
+package com.simplytrack.apigateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Signs the identity headers the gateway forwards after verifying a JWT, so backends can trust them
+ * with one HMAC instead of re-parsing and RSA-verifying the token. Backends recompute the same MAC
+ * over "user\nroles\nexpires" with the shared {@code gateway.identity.secret}.
+ */
+@Component
+public class IdentitySigner {
+
+    public static final String USER_HEADER = "X-Auth-User";
+    public static final String ROLES_HEADER = "X-Auth-Roles";
+    public static final String EXPIRES_HEADER = "X-Auth-Expires";
+    public static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    private final Mac prototype;
+
+    public IdentitySigner(@Value("${gateway.identity.secret:}") String secret) throws GeneralSecurityException {
+        if (secret.isEmpty()) {
+            this.prototype = null;
+        } else {
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        }
+    }
+
+    /** Without a configured secret the gateway forwards only the Authorization header. */
+    public boolean isEnabled() {
+        return prototype != null;
+    }
+
+    public String sign(String user, String roles, long expiresEpochSecond) {
+        try {
+            // Mac is not thread-safe; cloning the initialized prototype skips key setup
+            Mac mac = (Mac) prototype.clone();
+            byte[] signature = mac.doFinal((user + "\n" + roles + "\n" + expiresEpochSecond)
+                    .getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 provider does not support clone", e);
+        }
+    }
+}
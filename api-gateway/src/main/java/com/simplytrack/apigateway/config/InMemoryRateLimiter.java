@@ -0,0 +1,117 @@
+package com.simplytrack.apigateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token-bucket {@code RateLimiter} kept in gateway memory, so RequestRateLimiter works without Redis.
+ * One bucket per (route, key); with the user key resolver that means every user gets their own bucket
+ * on every route. Limits are per gateway instance.
+ *
+ * <pre>
+ * - name: RequestRateLimiter
+ *   args:
+ *     rate-limiter: "#{@inMemoryRateLimiter}"
+ *     key-resolver: "#{@userKeyResolver}"
+ *     in-memory-rate-limiter.replenish-rate: 0.2   # tokens per second
+ *     in-memory-rate-limiter.burst-capacity: 3
+ * </pre>
+ */
+@Component
+public class InMemoryRateLimiter extends AbstractRateLimiter<InMemoryRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "in-memory-rate-limiter";
+
+    // idle buckets are full again long before this, so dropping them loses nothing
+    private final Cache<String, Bucket> buckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public InMemoryRateLimiter(ConfigurationService configurationService) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+    }
+
+    public static class Config {
+        private double replenishRate = 1;
+        private int burstCapacity = 1;
+        private int requestedTokens = 1;
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public void setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        Bucket(double tokens) {
+            this.tokens = tokens;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /** @return seconds until enough tokens are available, or 0 if they were taken */
+        synchronized long tryConsume(Config config) {
+            long now = System.nanoTime();
+            tokens = Math.min(config.getBurstCapacity(),
+                    tokens + (now - lastRefillNanos) / 1_000_000_000.0 * config.getReplenishRate());
+            lastRefillNanos = now;
+            if (tokens >= config.getRequestedTokens()) {
+                tokens -= config.getRequestedTokens();
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((config.getRequestedTokens() - tokens) / config.getReplenishRate()));
+        }
+
+        synchronized long remaining() {
+            return (long) tokens;
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            return Mono.just(new Response(true, Map.of()));
+        }
+        Bucket bucket = buckets.get(routeId + '|' + id, k -> new Bucket(config.getBurstCapacity()));
+        long retryAfter = bucket.tryConsume(config);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", Long.toString(bucket.remaining()));
+        headers.put("X-RateLimit-Burst-Capacity", Integer.toString(config.getBurstCapacity()));
+        headers.put("X-RateLimit-Replenish-Rate", Double.toString(config.getReplenishRate()));
+        if (retryAfter > 0) {
+            headers.put("Retry-After", Long.toString(retryAfter));
+        }
+        return Mono.just(new Response(retryAfter == 0, headers));
+    }
+}
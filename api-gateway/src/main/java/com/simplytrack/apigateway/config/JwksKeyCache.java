@@ -0,0 +1,130 @@
+package com.simplytrack.apigateway.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Public keys from the auth service's JWKS, cached by kid. Lookups during token verification are
+ * plain map reads; fetching is non-blocking and only happens at startup and when a token names a
+ * kid we have not seen (key rotation), with concurrent refreshes sharing one request.
+ */
+@Component
+public class JwksKeyCache extends SigningKeyResolverAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final long minRefreshIntervalMs;
+
+    private final Map<String, PublicKey> keys = new ConcurrentHashMap<>();
+    private final AtomicReference<Mono<Void>> inFlight = new AtomicReference<>();
+    private volatile long lastRefresh;
+
+    public JwksKeyCache(WebClient.Builder webClientBuilder,
+            @Value("${jwt.jwks-uri}") String jwksUri,
+            @Value("${jwt.jwks-min-refresh-interval-ms:30000}") long minRefreshIntervalMs) {
+        this.webClient = webClientBuilder.build();
+        this.jwksUri = jwksUri;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+    }
+
+    /** Thrown when a token's kid is not in the cache; callers refresh and retry once. */
+    public static class UnknownKeyException extends JwtException {
+        public UnknownKeyException(String kid) {
+            super("Unknown signing key id: " + kid);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        Key key = header.getKeyId() != null ? keys.get(header.getKeyId()) : null;
+        if (key == null) {
+            throw new UnknownKeyException(header.getKeyId());
+        }
+        return key;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh().subscribe();
+    }
+
+    public Mono<Void> refresh() {
+        Mono<Void> running = inFlight.get();
+        if (running != null) {
+            return running;
+        }
+        if (System.currentTimeMillis() - lastRefresh < minRefreshIntervalMs) {
+            return Mono.empty();
+        }
+        Mono<Void> fetch = webClient.get().uri(jwksUri)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .timeout(Duration.ofSeconds(2))
+                .doOnNext(this::load)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Unable to fetch JWKS from {}: {}", jwksUri, e.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> inFlight.set(null))
+                .cache();
+        if (inFlight.compareAndSet(null, fetch)) {
+            lastRefresh = System.currentTimeMillis();
+            return fetch;
+        }
+        running = inFlight.get();
+        return running != null ? running : Mono.empty();
+    }
+
+    private void load(Map<?, ?> jwks) {
+        if (!(jwks.get("keys") instanceof List<?> jwkList)) {
+            log.warn("JWKS response from {} has no keys", jwksUri);
+            return;
+        }
+        try {
+            KeyFactory rsa = KeyFactory.getInstance("RSA");
+            Map<String, PublicKey> fetched = new HashMap<>();
+            for (Object entry : jwkList) {
+                Map<?, ?> jwk = (Map<?, ?>) entry;
+                if (!"RSA".equals(jwk.get("kty"))) {
+                    continue;
+                }
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n")));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e")));
+                fetched.put((String) jwk.get("kid"), rsa.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+            keys.putAll(fetched);
+            keys.keySet().retainAll(fetched.keySet());
+            log.info("Loaded {} signing keys from {}", keys.size(), jwksUri);
+        } catch (GeneralSecurityException e) {
+            log.error("Invalid key in JWKS from {}: {}", jwksUri, e.getMessage());
+        }
+    }
+}
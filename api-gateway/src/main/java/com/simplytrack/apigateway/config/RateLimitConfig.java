@@ -0,0 +1,17 @@
+package com.simplytrack.apigateway.config;
+
+import com.simplytrack.apigateway.filter.JwtAuthenticationFilter;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+@Configuration
+public class RateLimitConfig {
+
+    /** Rate-limit key: the JWT subject verified by JwtAuthenticationFilter. */
+    @Bean
+    public KeyResolver userKeyResolver() {
+        return exchange -> Mono.justOrEmpty(exchange.<String>getAttribute(JwtAuthenticationFilter.USER_ATTRIBUTE));
+    }
+}
@@ -0,0 +1,74 @@
+package com.simplytrack.apigateway.config;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Defaults for the CircuitBreaker route filters and the registry behind the Bulkhead filter.
+ * Route deadlines are set per route with the response-timeout metadata; the breaker's time limiter
+ * is only a backstop above the longest of them. It times a whole exchange, so the streamed tax export
+ * (tradeExport) gets a longer one.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> defaultCircuitBreaker(
+            @Value("${gateway.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${gateway.circuit-breaker.slow-call-duration:3s}") Duration slowCallDuration,
+            @Value("${gateway.circuit-breaker.heavy-slow-call-duration:30s}") Duration heavySlowCallDuration,
+            @Value("${gateway.circuit-breaker.wait-in-open-state:10s}") Duration waitInOpenState,
+            @Value("${gateway.circuit-breaker.time-limit:90s}") Duration timeLimit,
+            @Value("${gateway.circuit-breaker.export-time-limit:10m}") Duration exportTimeLimit) {
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(50)
+                .minimumNumberOfCalls(20)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(80)
+                .waitDurationInOpenState(waitInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(5)
+                .build();
+        TimeLimiterConfig timeLimiterConfig = TimeLimiterConfig.custom()
+                .timeoutDuration(timeLimit)
+                .build();
+        TimeLimiterConfig exportTimeLimiterConfig = TimeLimiterConfig.custom()
+                .timeoutDuration(exportTimeLimit)
+                .build();
+        CircuitBreakerConfig heavyCircuitBreakerConfig = CircuitBreakerConfig.from(circuitBreakerConfig)
+                .slowCallDurationThreshold(heavySlowCallDuration)
+                .build();
+        return factory -> {
+            factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
+                    .circuitBreakerConfig(circuitBreakerConfig)
+                    .timeLimiterConfig(timeLimiterConfig)
+                    .build());
+            factory.configure(builder -> builder
+                    .circuitBreakerConfig(heavyCircuitBreakerConfig)
+                    .timeLimiterConfig(timeLimiterConfig), "tradeMatch", "tradeBatch", "tradeReports");
+            factory.configure(builder -> builder
+                    .circuitBreakerConfig(heavyCircuitBreakerConfig)
+                    .timeLimiterConfig(exportTimeLimiterConfig), "tradeExport");
+        };
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        // also picks up bulkheads the route filters create later
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+}
@@ -0,0 +1,35 @@
+package com.simplytrack.apigateway.controller;
+
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Target of the CircuitBreaker filters' fallbackUri. Answers fast with 503 while a breaker is open
+ * (or 504 when the call timed out) instead of letting requests queue behind a failing service.
+ */
+@RestController
+@RequestMapping("/fallback")
+public class FallbackController {
+
+    @RequestMapping("/{service}")
+    public ResponseEntity<Map<String, Object>> fallback(@PathVariable String service, ServerWebExchange exchange) {
+        Throwable cause = exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        boolean timedOut = cause instanceof TimeoutException
+                || cause instanceof ResponseStatusException e && e.getStatusCode() == HttpStatus.GATEWAY_TIMEOUT;
+        HttpStatus status = timedOut ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .header("Retry-After", "5")
+                .body(Map.of(
+                        "status", status.value(),
+                        "error", service + " is unavailable, please retry shortly"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.simplytrack.apigateway.filter;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Gives a route its own fixed pool of in-flight calls to the backend, so a slow route (full
+ * re-match, bulk insert) fills its own bulkhead and gets 503s instead of taking the capacity that
+ * login and plain reads need. Rejections are counted in {@code gateway.bulkhead.rejected}.
+ *
+ * <pre>
+ * filters:
+ *   - Bulkhead=tradeMatch, 4    # bulkhead name, max concurrent calls
+ * </pre>
+ */
+@Component
+public class BulkheadGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<BulkheadGatewayFilterFactory.Config> {
+
+    private final BulkheadRegistry registry;
+    private final MeterRegistry meterRegistry;
+
+    public BulkheadGatewayFilterFactory(BulkheadRegistry registry, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static class Config {
+        private String name;
+        private int maxConcurrentCalls = 25;
+        private Duration maxWait = Duration.ZERO;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("name", "maxConcurrentCalls");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Bulkhead bulkhead = registry.bulkhead(config.getName(), BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxWaitDuration(config.getMaxWait())
+                .build());
+        Counter rejected = Counter.builder("gateway.bulkhead.rejected")
+                .tag("name", config.getName())
+                .register(meterRegistry);
+
+        return (exchange, chain) -> chain.filter(exchange)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .onErrorResume(BulkheadFullException.class, e -> {
+                    rejected.increment();
+                    exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    exchange.getResponse().getHeaders().set("Retry-After", "1");
+                    return exchange.getResponse().setComplete();
+                });
+    }
+}
@@ -0,0 +1,89 @@
+package com.simplytrack.apigateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caps how many requests one user can have in flight on a route, e.g. so a user cannot run several
+ * full re-matches at once. Over the cap the request is rejected with 429 and Retry-After.
+ *
+ * <pre>
+ * filters:
+ *   - ConcurrencyLimit=1, 5    # max in flight per user, Retry-After seconds
+ * </pre>
+ */
+@Component
+public class ConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    // only keys with requests in flight are present; the entry is removed when the count drops to zero
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    public static class Config {
+        private int maxConcurrent = 1;
+        private int retryAfterSeconds = 5;
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxConcurrent", "retryAfterSeconds");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String user = exchange.getAttribute(JwtAuthenticationFilter.USER_ATTRIBUTE);
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (user == null || route == null) {
+                return chain.filter(exchange);
+            }
+            String key = route.getId() + '|' + user;
+
+            boolean[] acquired = { false };
+            inFlight.compute(key, (k, count) -> {
+                int current = count == null ? 0 : count;
+                if (current >= config.getMaxConcurrent()) {
+                    return count;
+                }
+                acquired[0] = true;
+                return current + 1;
+            });
+            if (!acquired[0]) {
+                exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                exchange.getResponse().getHeaders().set("Retry-After", Integer.toString(config.getRetryAfterSeconds()));
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange)
+                    .doFinally(signal -> inFlight.computeIfPresent(key, (k, count) -> count <= 1 ? null : count - 1));
+        };
+    }
+}
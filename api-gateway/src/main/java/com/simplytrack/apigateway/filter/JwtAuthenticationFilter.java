@@ -0,0 +1,154 @@
+package com.simplytrack.apigateway.filter;
+
+import com.simplytrack.apigateway.config.IdentitySigner;
+import com.simplytrack.apigateway.config.JwksKeyCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Verifies the bearer token once at the edge. Public routes (/api/auth/**, actuator, CORS preflight)
+ * pass through; everything else needs a valid token or gets a 401 without reaching a backend.
+ * On success the caller's identity is forwarded as signed X-Auth-* headers and stored as the
+ * {@link #USER_ATTRIBUTE} exchange attribute for later filters.
+ */
+@Component
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+
+    public static final String USER_ATTRIBUTE = "strack.user";
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    private final JwksKeyCache keyCache;
+    private final IdentitySigner identitySigner;
+    private final JwtParser parser;
+
+    public JwtAuthenticationFilter(JwksKeyCache keyCache, IdentitySigner identitySigner) {
+        this.keyCache = keyCache;
+        this.identitySigner = identitySigner;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyCache)
+                .build();
+    }
+
+    @Override
+    public int getOrder() {
+        // ahead of the route filters (rate limiting, caching) that key on the authenticated user
+        return -100;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        // Never let a client supply its own identity headers
+        ServerHttpRequest.Builder stripped = request.mutate().headers(headers -> {
+            headers.remove(IdentitySigner.USER_HEADER);
+            headers.remove(IdentitySigner.ROLES_HEADER);
+            headers.remove(IdentitySigner.EXPIRES_HEADER);
+            headers.remove(IdentitySigner.SIGNATURE_HEADER);
+        });
+
+        if (isPublic(request)) {
+            return chain.filter(exchange.mutate().request(stripped.build()).build());
+        }
+
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return unauthorized(exchange);
+        }
+        String token = header.substring(7);
+
+        return Mono.fromCallable(() -> parse(token))
+                .onErrorResume(JwksKeyCache.UnknownKeyException.class,
+                        e -> keyCache.refresh().then(Mono.fromCallable(() -> parse(token))))
+                // read every claim here so a malformed one takes the 401 path below, not a 500
+                .map(claims -> Optional.of(Identity.from(claims)))
+                .onErrorResume(e -> e instanceof JwtException || e instanceof IllegalArgumentException, e -> {
+                    log.debug("Rejected token for {}: {}", request.getPath(), e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(identity -> identity.isPresent()
+                        ? forward(exchange, chain, stripped, identity.get())
+                        : unauthorized(exchange));
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain,
+            ServerHttpRequest.Builder request, Identity identity) {
+        exchange.getAttributes().put(USER_ATTRIBUTE, identity.user());
+        if (identitySigner.isEnabled()) {
+            request.headers(headers -> {
+                headers.set(IdentitySigner.USER_HEADER, identity.user());
+                headers.set(IdentitySigner.ROLES_HEADER, identity.roles());
+                headers.set(IdentitySigner.EXPIRES_HEADER, Long.toString(identity.expires()));
+                headers.set(IdentitySigner.SIGNATURE_HEADER,
+                        identitySigner.sign(identity.user(), identity.roles(), identity.expires()));
+            });
+        }
+        return chain.filter(exchange.mutate().request(request.build()).build());
+    }
+
+    private Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /** The verified caller as forwarded to the backends; roles in the space-delimited claim form. */
+    private record Identity(String user, String roles, long expires) {
+
+        static Identity from(Claims claims) {
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                throw new MalformedJwtException("Token has no subject or expiry");
+            }
+            return new Identity(claims.getSubject(), roles(claims.get("roles")),
+                    claims.getExpiration().toInstant().getEpochSecond());
+        }
+
+        /** Tokens issued before the compact claim carry roles as a list such as ["ROLE_USER"]. */
+        private static String roles(Object claim) {
+            if (claim == null) {
+                return "";
+            }
+            if (claim instanceof String roles) {
+                return roles;
+            }
+            if (claim instanceof Collection<?> roles) {
+                StringJoiner joiner = new StringJoiner(" ");
+                for (Object role : roles) {
+                    String name = String.valueOf(role);
+                    joiner.add(name.startsWith("ROLE_") ? name.substring(5) : name);
+                }
+                return joiner.toString();
+            }
+            throw new MalformedJwtException("Unsupported roles claim: " + claim.getClass().getSimpleName());
+        }
+    }
+
+    private static boolean isPublic(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        return request.getMethod() == HttpMethod.OPTIONS
+                || path.startsWith("/api/auth/")
+                || path.startsWith("/actuator/");
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return exchange.getResponse().setComplete();
+    }
+}
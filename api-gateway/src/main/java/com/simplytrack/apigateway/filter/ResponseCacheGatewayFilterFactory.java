@@ -0,0 +1,178 @@
+package com.simplytrack.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches successful GET responses per user for the configured paths, so repeated dashboard polls are
+ * answered at the gateway. Entries are keyed by (user, cache generation, encoding, path, query); any non-GET
+ * request by the same user on the route bumps their generation, which makes their old entries
+ * unreachable until they age out. Responses carry an ETag and a matching If-None-Match gets a 304.
+ *
+ * <pre>
+ * filters:
+ *   - name: ResponseCache
+ *     args:
+ *       paths: /api/trades, /api/trades/tradeCount
+ * </pre>
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final List<String> CACHED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.VARY);
+
+    private final Cache<String, CachedResponse> cache;
+    private final Cache<String, AtomicLong> generations;
+
+    public ResponseCacheGatewayFilterFactory(
+            @Value("${gateway.response-cache.ttl:30s}") Duration ttl,
+            @Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize) {
+        super(Config.class);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse value) -> value.body().length + key.length())
+                .expireAfterWrite(ttl)
+                .build();
+        // must outlive any entry written under a generation, otherwise a reset counter could revive stale entries
+        this.generations = Caffeine.newBuilder()
+                .expireAfterAccess(ttl.multipliedBy(2))
+                .build();
+    }
+
+    public static class Config {
+        private List<String> paths = new ArrayList<>();
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+
+    record CachedResponse(HttpHeaders headers, byte[] body, String etag) {
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Must wrap the response before NettyWriteResponseFilter copies the backend body into it
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String user = exchange.getAttribute(JwtAuthenticationFilter.USER_ATTRIBUTE);
+            if (user == null) {
+                return chain.filter(exchange);
+            }
+            if (request.getMethod() != HttpMethod.GET) {
+                // bump before and after so a GET racing with this write cannot cache pre-write data
+                invalidate(user);
+                return chain.filter(exchange).doFinally(signal -> invalidate(user));
+            }
+            if (!config.getPaths().contains(request.getPath().value())) {
+                return chain.filter(exchange);
+            }
+
+            // backends gzip their responses, so gzip and identity bodies are separate entries
+            String key = user + '|' + generation(user).get() + '|' + acceptedEncoding(request) + '|'
+                    + request.getURI().getRawPath() + '?' + request.getURI().getRawQuery();
+            CachedResponse hit = cache.getIfPresent(key);
+            if (hit != null) {
+                return writeCached(exchange, hit);
+            }
+            return chain.filter(exchange.mutate().response(cachingDecorator(exchange, key)).build());
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private static String acceptedEncoding(ServerHttpRequest request) {
+        String acceptEncoding = request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip") ? "gzip" : "identity";
+    }
+
+    private AtomicLong generation(String user) {
+        return generations.get(user, u -> new AtomicLong());
+    }
+
+    private void invalidate(String user) {
+        generation(user).incrementAndGet();
+    }
+
+    private ServerHttpResponseDecorator cachingDecorator(ServerWebExchange exchange, String key) {
+        ServerHttpResponse original = exchange.getResponse();
+        return new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getStatusCode() != HttpStatus.OK) {
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    HttpHeaders headers = new HttpHeaders();
+                    for (String name : CACHED_HEADERS) {
+                        List<String> values = getHeaders().get(name);
+                        if (values != null) {
+                            headers.put(name, values);
+                        }
+                    }
+                    String etag = "\"0" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+                    cache.put(key, new CachedResponse(headers, bytes, etag));
+
+                    getHeaders().setETag(etag);
+                    if (notModified(exchange, etag)) {
+                        setStatusCode(HttpStatus.NOT_MODIFIED);
+                        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                        return getDelegate().setComplete();
+                    }
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+    }
+
+    private static Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse hit) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(hit.headers());
+        response.getHeaders().setETag(hit.etag());
+        if (notModified(exchange, hit.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentLength(hit.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(hit.body())));
+    }
+
+    private static boolean notModified(ServerWebExchange exchange, String etag) {
+        List<String> ifNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+        return ifNoneMatch.contains(etag) || ifNoneMatch.contains("*");
+    }
+}
@@ -0,0 +1,108 @@
+package com.simplytrack.loadtest;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end auth path: register, login (BCrypt), reuse the access token for a burst of
+ * /api/trades calls (JWT filter), then renew it through /api/auth/refresh.
+ *
+ * Tunables (-D system properties): authBaseUrl, tradeBaseUrl, users, rampSeconds,
+ * iterations, p99Ms.
+ */
+public class AuthTradeSimulation extends Simulation {
+
+    static final String AUTH_BASE_URL = System.getProperty("authBaseUrl", "http://localhost:8080");
+    static final String TRADE_BASE_URL = System.getProperty("tradeBaseUrl", "http://localhost:8081");
+    static final int USERS = Integer.getInteger("users", 50);
+    static final int RAMP_SECONDS = Integer.getInteger("rampSeconds", 30);
+    static final int ITERATIONS = Integer.getInteger("iterations", 20);
+    static final int P99_MS = Integer.getInteger("p99Ms", 1000);
+
+    static final String[] SYMBOLS = { "AAPL", "MSFT", "TSLA", "NVDA", "AMZN", "SPY" };
+
+    static final Iterator<Map<String, Object>> accounts = Stream.generate((Supplier<Map<String, Object>>) () -> {
+        String id = UUID.randomUUID().toString().substring(0, 12);
+        return Map.of(
+                "email", "lt-" + id + "@example.com",
+                "username", "lt-" + id,
+                "password", "pw-" + id);
+    }).iterator();
+
+    static final HttpProtocolBuilder httpProtocol = http
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json");
+
+    static final ChainBuilder registerAndLogin = exec(
+            http("register").post(AUTH_BASE_URL + "/api/auth/register")
+                    .body(StringBody("{\"email\":\"#{email}\",\"username\":\"#{username}\","
+                            + "\"password\":\"#{password}\",\"roles\":[\"ROLE_USER\"]}"))
+                    .check(status().is(200)))
+            .exec(http("login").post(AUTH_BASE_URL + "/api/auth/login")
+                    .body(StringBody("{\"email\":\"#{email}\",\"password\":\"#{password}\"}"))
+                    .check(status().is(200))
+                    .check(jsonPath("$.token").saveAs("token"))
+                    .check(jsonPath("$.refreshToken").saveAs("refreshToken")));
+
+    static final ChainBuilder tradeTraffic = repeat(ITERATIONS).on(
+            exec(http("create trade").post(TRADE_BASE_URL + "/api/trades")
+                    .header("Authorization", "Bearer #{token}")
+                    .body(StringBody(session -> randomTrade()))
+                    .check(status().is(200)))
+            .exec(http("list trades").get(TRADE_BASE_URL + "/api/trades")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200)))
+            .exec(http("trade count").get(TRADE_BASE_URL + "/api/trades/tradeCount")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200))));
+
+    static final ChainBuilder refresh = exec(
+            http("refresh").post(AUTH_BASE_URL + "/api/auth/refresh")
+                    .body(StringBody("{\"refreshToken\":\"#{refreshToken}\"}"))
+                    .check(status().is(200))
+                    .check(jsonPath("$.token").saveAs("token"))
+                    .check(jsonPath("$.refreshToken").saveAs("refreshToken")))
+            .exec(http("trade count after refresh").get(TRADE_BASE_URL + "/api/trades/tradeCount")
+                    .header("Authorization", "Bearer #{token}")
+                    .check(status().is(200)));
+
+    static final ScenarioBuilder scenario = scenario("register, login, trade traffic, refresh")
+            .feed(accounts)
+            .exec(registerAndLogin)
+            .exec(tradeTraffic)
+            .exec(refresh);
+
+    {
+        setUp(scenario.injectOpen(rampUsers(USERS).during(Duration.ofSeconds(RAMP_SECONDS))))
+                .protocols(httpProtocol)
+                .assertions(
+                        global().successfulRequests().percent().gt(99.0),
+                        global().responseTime().percentile(99.0).lt(P99_MS),
+                        details("login").responseTime().percentile(95.0).lt(P99_MS));
+    }
+
+    static String randomTrade() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String action = random.nextBoolean() ? "BUY" : "SELL";
+        return "{\"trade_type\":\"STOCK\",\"portfolioName\":\"loadtest\","
+                + "\"symbol\":\"" + SYMBOLS[random.nextInt(SYMBOLS.length)] + "\","
+                + "\"action\":\"" + action + "\","
+                + "\"quantity\":" + (1 + random.nextInt(100)) + ","
+                + "\"price\":" + (50 + random.nextInt(400)) + ".25,"
+                + "\"commission\":0,\"fee\":0,"
+                + "\"tradeDate\":\"2024-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + "T10:15:00\"}";
+    }
+}
@@ -0,0 +1,59 @@
+package com.simplytrack.loadtest;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+
+import java.time.Duration;
+
+/**
+ * Thousands of concurrent users for comparing the platform-thread pool with the 'virtual' profile.
+ * After one register/login, every user loops over JDBC-bound trade requests for the whole run,
+ * while a smaller group keeps logging in so BCrypt competes for CPU. Run it once against each
+ * mode and compare throughput and p99 in the two reports.
+ *
+ * Tunables (-D system properties): authBaseUrl, tradeBaseUrl, concurrency, loginConcurrency,
+ * durationSeconds, p99Ms.
+ */
+public class HighConcurrencySimulation extends Simulation {
+
+    static final int CONCURRENCY = Integer.getInteger("concurrency", 1000);
+    static final int LOGIN_CONCURRENCY = Integer.getInteger("loginConcurrency", CONCURRENCY / 20);
+    static final int DURATION_SECONDS = Integer.getInteger("durationSeconds", 120);
+    static final int P99_MS = Integer.getInteger("p99Ms", 2000);
+
+    static final ScenarioBuilder tradeUsers = scenario("trade traffic")
+            .feed(AuthTradeSimulation.accounts)
+            .exec(AuthTradeSimulation.registerAndLogin)
+            .during(Duration.ofSeconds(DURATION_SECONDS)).on(
+                    exec(http("trade count").get(AuthTradeSimulation.TRADE_BASE_URL + "/api/trades/tradeCount")
+                            .header("Authorization", "Bearer #{token}")
+                            .check(status().is(200)))
+                    .exec(http("create trade").post(AuthTradeSimulation.TRADE_BASE_URL + "/api/trades")
+                            .header("Authorization", "Bearer #{token}")
+                            .body(StringBody(session -> AuthTradeSimulation.randomTrade()))
+                            .check(status().is(200)))
+                    .exec(http("list trades").get(AuthTradeSimulation.TRADE_BASE_URL + "/api/trades")
+                            .header("Authorization", "Bearer #{token}")
+                            .check(status().is(200))));
+
+    static final ScenarioBuilder loginUsers = scenario("repeated login")
+            .feed(AuthTradeSimulation.accounts)
+            .exec(AuthTradeSimulation.registerAndLogin)
+            .during(Duration.ofSeconds(DURATION_SECONDS)).on(
+                    exec(http("login").post(AuthTradeSimulation.AUTH_BASE_URL + "/api/auth/login")
+                            .body(StringBody("{\"email\":\"#{email}\",\"password\":\"#{password}\"}"))
+                            .check(status().is(200))));
+
+    {
+        setUp(
+                tradeUsers.injectOpen(rampUsers(CONCURRENCY).during(Duration.ofSeconds(10))),
+                loginUsers.injectOpen(rampUsers(LOGIN_CONCURRENCY).during(Duration.ofSeconds(10))))
+                .protocols(AuthTradeSimulation.httpProtocol)
+                .assertions(
+                        global().successfulRequests().percent().gt(99.0),
+                        global().responseTime().percentile(99.0).lt(P99_MS));
+    }
+}
@@ -0,0 +1,134 @@
+package com.simplytrack.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Time from JVM launch until /actuator/health/readiness is UP, for the plain jar and for the -Pfast-start
+ * build (AOT + CDS archive + fast-start profile). Each mode is started and stopped {@code runs} times and
+ * min/median/max are printed; the run fails if the fast-start median is over {@code budgetMs}.
+ *
+ * Build the service with ./mvnw -Pfast-start package first (that also produces the plain jar), then:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.simplytrack.loadtest.StartupBenchmark -Dservice=../strack-trade-service -Dport=8081
+ *
+ * Tunables (-D system properties): service, port, profiles, runs, budgetMs, timeoutSeconds.
+ */
+public class StartupBenchmark {
+
+    static final Path SERVICE = Path.of(System.getProperty("service", "../strack-trade-service"));
+    static final int PORT = Integer.getInteger("port", 8081);
+    static final String PROFILES = System.getProperty("profiles", "dev");
+    static final int RUNS = Integer.getInteger("runs", 5);
+    static final long BUDGET_MS = Long.getLong("budgetMs", 1500);
+    static final int TIMEOUT_SECONDS = Integer.getInteger("timeoutSeconds", 60);
+
+    static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        Path target = SERVICE.resolve("target");
+        Path jar = findJar(target);
+        Path fastStartDir = target.resolve("fast-start");
+        Path fastStartJar = fastStartDir.resolve(jar.getFileName());
+
+        long[] plain = measure("plain jar", List.of("-jar", jar.toString()), PROFILES);
+        if (!Files.exists(fastStartJar)) {
+            System.out.println("No " + fastStartJar + "; build with -Pfast-start to compare");
+            return;
+        }
+        long[] fast = measure("fast-start", List.of(
+                "-XX:SharedArchiveFile=" + fastStartDir.resolve("application.jsa"),
+                "-Dspring.aot.enabled=true",
+                "-jar", fastStartJar.toString()), PROFILES + ",fast-start");
+
+        System.out.printf("%nfast-start median %d ms vs %d ms plain (budget %d ms)%n",
+                median(fast), median(plain), BUDGET_MS);
+        if (median(fast) > BUDGET_MS) {
+            System.exit(1);
+        }
+    }
+
+    static Path findJar(Path target) throws IOException {
+        try (Stream<Path> files = Files.list(target)) {
+            return files.filter(f -> f.toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in " + target + "; run ./mvnw package"));
+        }
+    }
+
+    static long[] measure(String mode, List<String> javaArgs, String profiles) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = startOnce(javaArgs, profiles);
+            System.out.printf("%-12s run %d: %,d ms%n", mode, i + 1, millis[i]);
+        }
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-12s min %,d ms  median %,d ms  max %,d ms%n", mode, sorted[0], median(millis),
+                sorted[sorted.length - 1]);
+        return millis;
+    }
+
+    static long startOnce(List<String> javaArgs, String profiles) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(javaArgs);
+        command.add("--server.port=" + PORT);
+        command.add("--spring.profiles.active=" + profiles);
+        // readiness goes UP on ApplicationReadyEvent, i.e. when the instance would start taking traffic
+        command.add("--management.endpoint.health.probes.enabled=true");
+
+        HttpRequest readiness = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + PORT + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "startup-benchmark.log"))
+                .start();
+        try {
+            long deadline = start + Duration.ofSeconds(TIMEOUT_SECONDS).toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Service exited with " + process.exitValue()
+                            + "; see startup-benchmark.log in " + System.getProperty("java.io.tmpdir"));
+                }
+                try {
+                    HttpResponse<String> response = client.send(readiness, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Not ready within " + TIMEOUT_SECONDS + "s");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -24,6 +24,24 @@ const AuthContext = createContext<AuthContextType>({
 
 export const useAuth = () => useContext(AuthContext);
 
+// A refresh token is accepted only once, so concurrent 401s share the refresh that is already in flight
+let refreshInFlight: Promise<string> | null = null;
+
+const refreshAccessToken = (refreshToken: string): Promise<string> => {
+  if (!refreshInFlight) {
+    refreshInFlight = axios.post('http://localhost:8080/api/auth/refresh', { refreshToken })
+      .then(response => {
+        localStorage.setItem('token', response.data.token);
+        localStorage.setItem('refreshToken', response.data.refreshToken);
+        return response.data.token as string;
+      })
+      .finally(() => {
+        refreshInFlight = null;
+      });
+  }
+  return refreshInFlight;
+};
+
 export const AuthProvider: React.FC<{ children: React.ReactNode }> = ({ children }) => {
   const [token, setToken] = useState<string | null>(localStorage.getItem('token'));
   const [user, setUser] = useState<any>(JSON.parse(localStorage.getItem('user') || 'null'));
@@ -38,6 +56,39 @@ export const AuthProvider: React.FC<{ children: React.ReactNode }> = ({ children
     }
   }, [token]);
 
+  // Access tokens are short lived: on a 401, trade the refresh token for a new pair and retry once
+  useEffect(() => {
+    const interceptor = axios.interceptors.response.use(
+      response => response,
+      async error => {
+        const original = error.config;
+        const refreshToken = localStorage.getItem('refreshToken');
+        if (error.response?.status !== 401 || !refreshToken || original._retried
+            || original.url?.includes('/api/auth/')) {
+          return Promise.reject(error);
+        }
+        original._retried = true;
+        const firstCaller = !refreshInFlight;
+        let newToken: string;
+        try {
+          newToken = await refreshAccessToken(refreshToken);
+        } catch (refreshError) {
+          // only the request that started the failed refresh logs out
+          if (firstCaller) {
+            logout();
+          }
+          return Promise.reject(refreshError);
+        }
+        if (firstCaller) {
+          setToken(newToken);
+        }
+        original.headers['Authorization'] = `Bearer ${newToken}`;
+        return axios(original);
+      }
+    );
+    return () => axios.interceptors.response.eject(interceptor);
+  }, []);
+
   const login = async (email: string, password: string) => {
     try {
       const response = await axios.post('http://localhost:8080/api/auth/login', {
@@ -46,10 +97,11 @@ export const AuthProvider: React.FC<{ children: React.ReactNode }> = ({ children
         roles: ["ROLE_USER"] 
       });
       
-      const { token, user } = response.data;
+      const { token, refreshToken, user } = response.data;
       console.log("Received token:", token); // Add this line
       
       localStorage.setItem('token', token);
+      localStorage.setItem('refreshToken', refreshToken);
       localStorage.setItem('user', JSON.stringify(user));
       
       // Update state synchronously
@@ -64,6 +116,11 @@ export const AuthProvider: React.FC<{ children: React.ReactNode }> = ({ children
   };
 
   const logout = () => {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) {
+      axios.post('http://localhost:8080/api/auth/logout', { refreshToken }).catch(() => {});
+    }
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('token');
     localStorage.removeItem('user');
     setToken(null);
@@ -0,0 +1,13 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A step series: realized[i] is the cumulative realized P&L and position[i] the open quantity from
+ * dates[i] until the next date. Only days on which something changed are listed (plus the range start).
+ * position is null when the series spans several instruments.
+ */
+public record EquityCurveDTO(String portfolioName, String symbol, String tradeType, List<LocalDate> dates,
+        double[] realized, double[] position) {
+}
@@ -0,0 +1,12 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Net open quantity of one option contract in one portfolio, as of its expiration. Positive for a long
+ * position (bought, not sold), negative for a short one (written, not covered).
+ */
+public record ExpiringPositionDTO(String userId, String portfolioName, String usymbol, String symbol,
+        LocalDateTime expirationDate, BigDecimal netQuantity) {
+}
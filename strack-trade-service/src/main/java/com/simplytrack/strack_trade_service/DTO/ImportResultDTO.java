@@ -0,0 +1,14 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import java.util.List;
+
+/**
+ * Outcome of a statement import: how many rows became new trades, how many were already stored (a re-upload
+ * or an overlapping statement), how many were rejected, and the first rejections with their row numbers so
+ * the user can fix the file or the column mapping.
+ */
+public record ImportResultDTO(int imported, int duplicates, int rejected, List<RowError> errors) {
+
+    public record RowError(int row, String message) {
+    }
+}
@@ -1,13 +1,21 @@
 package com.simplytrack.strack_trade_service.DTO;
 
 
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.OptionMatch;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Flat view of a MatchedTrade for API responses: trade ids instead of the nested buy/sell trades,
+ * which keeps payloads small and never touches the lazy associations during serialization.
+ */
 public class MatchedTradeDTO {
     private Long id;
     private Long buyTradeId;
     private Long sellTradeId;
+    private String symbol;
     private LocalDateTime matchTimestamp;
     private BigDecimal matchedPrice;
     private BigDecimal matchedQuantity;
@@ -17,6 +25,7 @@ public class MatchedTradeDTO {
     private BigDecimal costBasis;
     private BigDecimal stGainOrLoss;
     private BigDecimal ltGainOrLoss;
+    private BigDecimal washSaleDisallowed;
     private String matchType;
 
     // Constructor
@@ -24,6 +33,7 @@ public class MatchedTradeDTO {
             Long id,
             Long buyTradeId,
             Long sellTradeId,
+            String symbol,
             LocalDateTime matchTimestamp,
             BigDecimal matchedPrice,
             BigDecimal matchedQuantity,
@@ -33,10 +43,12 @@ public class MatchedTradeDTO {
             BigDecimal costBasis,
             BigDecimal stGainOrLoss,
             BigDecimal ltGainOrLoss,
+            BigDecimal washSaleDisallowed,
             String matchType) {
         this.id = id;
         this.buyTradeId = buyTradeId;
         this.sellTradeId = sellTradeId;
+        this.symbol = symbol;
         this.matchTimestamp = matchTimestamp;
         this.matchedPrice = matchedPrice;
         this.matchedQuantity = matchedQuantity;
@@ -46,13 +58,34 @@ public class MatchedTradeDTO {
         this.costBasis = costBasis;
         this.stGainOrLoss = stGainOrLoss;
         this.ltGainOrLoss = ltGainOrLoss;
+        this.washSaleDisallowed = washSaleDisallowed;
         this.matchType = matchType;
     }
 
+    public static MatchedTradeDTO from(MatchedTrade m) {
+        return new MatchedTradeDTO(
+                m.getId(),
+                m.getBuyTrade().getId(),
+                m.getSellTrade().getId(),
+                m.getSellTrade().getSymbol(),
+                m.getMatchTimestamp(),
+                m.getMatchedPrice(),
+                m.getMatchedQuantity(),
+                m.getDateAcquired(),
+                m.getDateSold(),
+                m.getProceeds(),
+                m.getCostBasis(),
+                m.getStGainOrLoss(),
+                m.getLtGainOrLoss(),
+                m.getWashSaleDisallowed(),
+                m instanceof OptionMatch ? "OPTION" : "STOCK");
+    }
+
     // Getters
     public Long getId() { return id; }
     public Long getBuyTradeId() { return buyTradeId; }
     public Long getSellTradeId() { return sellTradeId; }
+    public String getSymbol() { return symbol; }
     public LocalDateTime getMatchTimestamp() { return matchTimestamp; }
     public BigDecimal getMatchedPrice() { return matchedPrice; }
     public BigDecimal getMatchedQuantity() { return matchedQuantity; }
@@ -62,5 +95,6 @@ public class MatchedTradeDTO {
     public BigDecimal getCostBasis() { return costBasis; }
     public BigDecimal getStGainOrLoss() { return stGainOrLoss; }
     public BigDecimal getLtGainOrLoss() { return ltGainOrLoss; }
+    public BigDecimal getWashSaleDisallowed() { return washSaleDisallowed; }
     public String getMatchType() { return matchType; }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import com.simplytrack.strack_trade_service.types.ActionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** One trade's effect on a position, read in trade-date order for the equity curve. */
+public record PositionChangeDTO(String portfolioName, String symbol, String tradeType, LocalDateTime tradeDate,
+        ActionType action, BigDecimal quantity) {
+}
@@ -0,0 +1,9 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** One match's realized gain on the day it closed, read in date-sold order for the equity curve. */
+public record RealizedGainDTO(String portfolioName, String symbol, String tradeType, LocalDateTime dateSold,
+        BigDecimal stGainOrLoss, BigDecimal ltGainOrLoss) {
+}
@@ -0,0 +1,12 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of a what-if run: the matches the hypothetical trades would produce against the current open
+ * lots, their short- and long-term totals, and the closing quantity no open lot covers.
+ */
+public record SimulationResultDTO(List<MatchedTradeDTO> matches, BigDecimal stGainOrLoss, BigDecimal ltGainOrLoss,
+        BigDecimal unmatchedQuantity) {
+}
@@ -0,0 +1,10 @@
+package com.simplytrack.strack_trade_service.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** One match as a Form 8949 line, read in date-sold order for the tax export. */
+public record TaxLotDTO(String symbol, String tradeType, BigDecimal quantity, LocalDateTime dateAcquired,
+        LocalDateTime dateSold, BigDecimal proceeds, BigDecimal costBasis, BigDecimal stGainOrLoss,
+        BigDecimal ltGainOrLoss, BigDecimal washSaleDisallowed) {
+}
@@ -0,0 +1,95 @@
+package com.simplytrack.strack_trade_service.config;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends every sampled span as one Zipkin v2 JSON line to {@code tracing.file-export.path}, so traces
+ * can be inspected without a Zipkin collector. Spans are queued and written by a background thread;
+ * if the queue is full they are dropped rather than slowing requests down.
+ */
+@Component
+@ConditionalOnProperty(name = "tracing.file-export.path")
+public class FileSpanExporter extends SpanHandler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(10_000);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public FileSpanExporter(@Value("${tracing.file-export.path}") Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.writer = new Thread(() -> drain(out), "span-file-exporter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("Writing sampled spans to {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        // MutableSpan.toString() is the span in Zipkin v2 JSON
+        if (cause != Cause.ABANDONED && !queue.offer(span.toString())) {
+            dropped.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void drain(BufferedWriter out) {
+        List<String> batch = new ArrayList<>(512);
+        try (out) {
+            while (running || !queue.isEmpty()) {
+                String first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, 511);
+                for (String line : batch) {
+                    out.write(line);
+                    out.newLine();
+                }
+                batch.clear();
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.error("Span file export stopped: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(2));
+        if (dropped.get() > 0) {
+            log.warn("Dropped {} spans because the export queue was full", dropped.get());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.simplytrack.strack_trade_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// GatewayIdentityVerifier**: Checks the X-Auth-* identity headers the api-gateway adds after it has verified
+// the JWT. A valid HMAC over "user\nroles\nexpires" lets the filter skip JWT parsing and RSA verification.
+
+@Component
+public class GatewayIdentityVerifier {
+
+    public static final String USER_HEADER = "X-Auth-User";
+    public static final String ROLES_HEADER = "X-Auth-Roles";
+    public static final String EXPIRES_HEADER = "X-Auth-Expires";
+    public static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    private final Mac prototype;
+
+    public GatewayIdentityVerifier(@Value("${gateway.identity.secret:}") String secret) throws GeneralSecurityException {
+        if (secret.isEmpty()) {
+            this.prototype = null;
+        } else {
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        }
+    }
+
+    public boolean verify(String user, String roles, String expires, String signature) {
+        if (prototype == null || user == null || roles == null || expires == null || signature == null) {
+            return false;
+        }
+        try {
+            if (Long.parseLong(expires) * 1000 < System.currentTimeMillis()) {
+                return false;
+            }
+            Mac mac = (Mac) prototype.clone();
+            byte[] expected = mac.doFinal((user + "\n" + roles + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature));
+        } catch (NumberFormatException | CloneNotSupportedException e) {
+            return false;
+        } catch (IllegalArgumentException e) {
+            // malformed base64 signature
+            return false;
+        }
+    }
+}
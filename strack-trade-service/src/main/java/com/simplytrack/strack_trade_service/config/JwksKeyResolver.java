@@ -0,0 +1,107 @@
+package com.simplytrack.strack_trade_service.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// JwksKeyResolver**: Resolves token signing keys by `kid` from the auth service's JWKS. The key set is fetched
+// once and cached; an unknown kid (e.g. after a key rotation) triggers a rate-limited refetch.
+
+@Slf4j
+@Component
+public class JwksKeyResolver extends SigningKeyResolverAdapter {
+
+    private final RestTemplate restTemplate;
+    private final String jwksUri;
+    private final long minRefreshIntervalMs;
+
+    private final Map<String, PublicKey> keys = new ConcurrentHashMap<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile long lastRefresh;
+
+    public JwksKeyResolver(RestTemplateBuilder restTemplateBuilder,
+            @Value("${jwt.jwks-uri}") String jwksUri,
+            @Value("${jwt.jwks-min-refresh-interval-ms:30000}") long minRefreshIntervalMs) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(2))
+                .build();
+        this.jwksUri = jwksUri;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            throw new JwtException("Token has no kid header");
+        }
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            refresh();
+            key = keys.get(kid);
+        }
+        if (key == null) {
+            throw new JwtException("Unknown signing key id: " + kid);
+        }
+        return key;
+    }
+
+    private void refresh() {
+        refreshLock.lock();
+        try {
+            // Another thread may have refreshed while we waited; also stop a flood of bogus kids
+            // from turning into a flood of JWKS requests.
+            if (System.currentTimeMillis() - lastRefresh < minRefreshIntervalMs) {
+                return;
+            }
+            lastRefresh = System.currentTimeMillis();
+            Map<?, ?> jwks = restTemplate.getForObject(jwksUri, Map.class);
+            if (jwks == null || !(jwks.get("keys") instanceof List<?> jwkList)) {
+                log.warn("JWKS response from {} has no keys", jwksUri);
+                return;
+            }
+            KeyFactory rsa = KeyFactory.getInstance("RSA");
+            Map<String, PublicKey> fetched = new HashMap<>();
+            for (Object entry : jwkList) {
+                Map<?, ?> jwk = (Map<?, ?>) entry;
+                if (!"RSA".equals(jwk.get("kty"))) {
+                    continue;
+                }
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n")));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e")));
+                fetched.put((String) jwk.get("kid"), rsa.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+            // keys retired by the auth service stop verifying once it no longer publishes them
+            keys.putAll(fetched);
+            keys.keySet().retainAll(fetched.keySet());
+            log.info("Loaded {} signing keys from {}", keys.size(), jwksUri);
+        } catch (RestClientException | GeneralSecurityException e) {
+            log.error("Unable to fetch JWKS from {}: {}", jwksUri, e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
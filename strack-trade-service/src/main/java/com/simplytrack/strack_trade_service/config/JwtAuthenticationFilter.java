@@ -1,12 +1,15 @@
 package com.simplytrack.strack_trade_service.config;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -14,9 +17,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.ArrayList;
-import java.util.Map;
+import java.util.function.Function;
 //**JwtAuthenticationFilter**: Intercepts incoming requests, extracts the JWT token, validates it, and sets up the security context with user details and roles.
 
 @Component
@@ -25,10 +26,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private GatewayIdentityVerifier gatewayIdentityVerifier;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
+        // Requests routed through api-gateway carry an identity it already verified; trust it if the HMAC checks out
+        String gatewayUser = request.getHeader(GatewayIdentityVerifier.USER_HEADER);
+        if (gatewayUser != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String gatewayRoles = request.getHeader(GatewayIdentityVerifier.ROLES_HEADER);
+            if (gatewayIdentityVerifier.verify(gatewayUser, gatewayRoles,
+                    request.getHeader(GatewayIdentityVerifier.EXPIRES_HEADER),
+                    request.getHeader(GatewayIdentityVerifier.SIGNATURE_HEADER))) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        gatewayUser, null, RoleAuthorities.fromClaim(gatewayRoles));
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                chain.doFilter(request, response);
+                return;
+            }
+        }
+
         final String requestTokenHeader = request.getHeader("Authorization");
 
         String username = null;
@@ -36,25 +59,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
-            System.out.println("I received token " + jwtToken);
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+                // Parse (and verify the signature) once, then read subject and roles from the same claims
+                String token = jwtToken;
+                Claims claims = Observation.createNotStarted("jwt.verify", observationRegistry)
+                        .observe(() -> jwtTokenUtil.getClaimFromToken(token, Function.identity()));
+                username = claims.getSubject();
                 // logger.info(" username = " + username, null);
                 // Extract roles from token claims
-                List<Map<String, String>> roles = jwtTokenUtil.getClaimFromToken(jwtToken, claims -> {
-                    try {
-                        return (List<Map<String, String>>) claims.get("roles");
-                    } catch (Exception e) {
-                        return new ArrayList<>();
-                    }
-                });
+                String roles = claims.get("roles", String.class);
                 
                 // If user is authenticated and not already set in context
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     // Create authentication token
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(role -> new SimpleGrantedAuthority(role.get("authority")))
-                            .collect(Collectors.toList());
+                    List<GrantedAuthority> authorities = RoleAuthorities.fromClaim(roles);
                     
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             username, null, authorities);
@@ -64,10 +82,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
                 
             } catch (Exception e) {
-                logger.error("Unable to get JWT Token or JWT Token has expired", e);
+                // expired tokens are routine (the client refreshes), so no stack trace per request
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Rejected JWT: " + e.getMessage());
+                }
             }
-        } else {
-            logger.warn("JWT Token does not begin with Bearer String");
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("JWT Token does not begin with Bearer String");
         }
 
         chain.doFilter(request, response);
@@ -1,24 +1,28 @@
 package com.simplytrack.strack_trade_service.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.function.Function;
 
 // JwtTokenUtil**: Handles JWT token validation and extraction of user details from the token.
+// Tokens are RS256-signed by strack-user-auth; public keys come from its JWKS via JwksKeyResolver.
 
 @Component
 public class JwtTokenUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtParser parser;
+
+    public JwtTokenUtil(JwksKeyResolver keyResolver) {
+        // JwtParser is immutable and thread-safe, so build it once instead of per request
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyResolver)
+                .build();
+    }
 
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
@@ -34,9 +38,7 @@ public class JwtTokenUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -50,9 +52,4 @@ public class JwtTokenUtil {
         final String username = getUsernameFromToken(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.simplytrack.strack_trade_service.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// RoleAuthorities**: Maps the compact `roles` claim ("USER ADMIN") to authority lists. There are only a handful
+// of distinct role combinations, so each one is built once and the same immutable list is reused on every request.
+
+final class RoleAuthorities {
+
+    private static final int MAX_CACHED = 64;
+    private static final Map<String, List<GrantedAuthority>> CACHE = new ConcurrentHashMap<>();
+
+    private RoleAuthorities() {
+    }
+
+    static List<GrantedAuthority> fromClaim(String claim) {
+        if (claim == null || claim.isEmpty()) {
+            return List.of();
+        }
+        List<GrantedAuthority> authorities = CACHE.get(claim);
+        if (authorities != null) {
+            return authorities;
+        }
+        authorities = parse(claim);
+        // guard against unbounded growth from unexpected claim values
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(claim, authorities);
+        }
+        return authorities;
+    }
+
+    private static List<GrantedAuthority> parse(String claim) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : claim.split(" ")) {
+            if (!role.isEmpty()) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+}
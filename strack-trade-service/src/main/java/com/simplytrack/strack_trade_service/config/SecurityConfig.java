@@ -32,7 +32,10 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Allow preflight requests
+                // query strings, pool state and a reset of the Hibernate counters: admins only
+                .requestMatchers("/actuator/sqlstats", "/actuator/sqlstats/**").hasRole("ADMIN")
                 .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/api/trades/corporate-actions/**").hasRole("ADMIN")
                 .requestMatchers("/api/trades/**").hasAnyRole("USER", "ADMIN")
                 .anyRequest().authenticated()
             )
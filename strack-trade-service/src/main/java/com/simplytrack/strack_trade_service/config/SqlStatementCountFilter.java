@@ -0,0 +1,57 @@
+package com.simplytrack.strack_trade_service.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+//**SqlStatementCountFilter**: Records how many SQL statements each request ran as the http.server.requests.sql
+// summary (tagged like http.server.requests by method and uri pattern) and warns when a request goes over budget,
+// which is usually an N+1 (lazy loads while serializing, or a save per row).
+
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "http.server.requests.sql";
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sql.statements.warn-per-request:50}")
+    private int warnThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        statementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = statementCounter.stop();
+            // the pattern (e.g. /api/trades/{id}) rather than the raw path keeps the uri tag bounded
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder(METRIC_NAME)
+                    .description("SQL statements per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+            if (statements > warnThreshold) {
+                logger.warn(request.getMethod() + " " + uri + " ran " + statements
+                        + " SQL statements (budget " + warnThreshold + ")");
+            }
+        }
+    }
+}
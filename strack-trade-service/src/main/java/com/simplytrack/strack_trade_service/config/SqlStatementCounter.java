@@ -0,0 +1,43 @@
+package com.simplytrack.strack_trade_service.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+//**SqlStatementCounter**: Hibernate StatementInspector that counts the JDBC statements prepared on the current
+// thread between start() and stop(). SqlStatementCountFilter brackets each request with it; statements run
+// outside a request (e.g. at startup) are not counted.
+
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /** @return statements prepared since start(), or 0 if start() was not called on this thread */
+    public int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
@@ -0,0 +1,143 @@
+package com.simplytrack.strack_trade_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+//**SqlStatsEndpoint**: /actuator/sqlstats — one view of the database side of the service: Hibernate statistics
+// (statements, entity fetches, slowest queries, second-level cache), the Hikari pool and per-endpoint statement
+// counts from SqlStatementCountFilter. DELETE resets the Hibernate counters, e.g. before a load-test run.
+// Both operations need ROLE_ADMIN (see SecurityConfig), unlike the rest of /actuator.
+
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private static final int SLOWEST_QUERIES = 10;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatsEndpoint(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+            MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sqlStats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("hibernate", hibernate());
+        body.put("hikari", hikari());
+        body.put("endpoints", endpoints());
+        return body;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Map<String, Object> hibernate() {
+        Statistics stats = statistics();
+        Map<String, Object> hibernate = new LinkedHashMap<>();
+        // hibernate.generate_statistics is off unless the profile turns it on; counters stay at zero then
+        hibernate.put("enabled", stats.isStatisticsEnabled());
+        hibernate.put("statementsPrepared", stats.getPrepareStatementCount());
+        hibernate.put("queriesExecuted", stats.getQueryExecutionCount());
+        hibernate.put("queryMaxTimeMs", stats.getQueryExecutionMaxTime());
+        hibernate.put("queryMaxTimeQuery", stats.getQueryExecutionMaxTimeQueryString());
+        // entity/collection fetches are lazy loads; a high count next to few queries is the N+1 signature
+        hibernate.put("entityFetches", stats.getEntityFetchCount());
+        hibernate.put("collectionFetches", stats.getCollectionFetchCount());
+        hibernate.put("entityLoads", stats.getEntityLoadCount());
+        hibernate.put("entityInserts", stats.getEntityInsertCount());
+        hibernate.put("entityUpdates", stats.getEntityUpdateCount());
+        hibernate.put("flushes", stats.getFlushCount());
+        hibernate.put("transactions", stats.getTransactionCount());
+
+        Map<String, Object> secondLevelCache = new LinkedHashMap<>();
+        secondLevelCache.put("hits", stats.getSecondLevelCacheHitCount());
+        secondLevelCache.put("misses", stats.getSecondLevelCacheMissCount());
+        secondLevelCache.put("puts", stats.getSecondLevelCachePutCount());
+        secondLevelCache.put("regions", stats.getSecondLevelCacheRegionNames());
+        hibernate.put("secondLevelCache", secondLevelCache);
+
+        hibernate.put("slowestQueries", Arrays.stream(stats.getQueries())
+                .map(query -> {
+                    var queryStats = stats.getQueryStatistics(query);
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("query", query);
+                    entry.put("executions", queryStats.getExecutionCount());
+                    entry.put("maxTimeMs", queryStats.getExecutionMaxTime());
+                    entry.put("avgTimeMs", queryStats.getExecutionAvgTime());
+                    entry.put("rows", queryStats.getExecutionRowCount());
+                    return entry;
+                })
+                .sorted(Comparator.comparingLong((Map<String, Object> entry) -> (Long) entry.get("maxTimeMs")).reversed())
+                .limit(SLOWEST_QUERIES)
+                .toList());
+        return hibernate;
+    }
+
+    private Map<String, Object> hikari() {
+        Map<String, Object> hikari = new LinkedHashMap<>();
+        try {
+            // the datasource-micrometer proxy delegates unwrap to the pool
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return hikari;
+            }
+            HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            hikari.put("pool", pool.getPoolName());
+            hikari.put("maximumPoolSize", pool.getMaximumPoolSize());
+            if (bean != null) {
+                hikari.put("active", bean.getActiveConnections());
+                hikari.put("idle", bean.getIdleConnections());
+                hikari.put("total", bean.getTotalConnections());
+                // threads waiting for a connection; non-zero means the pool is saturated
+                hikari.put("pending", bean.getThreadsAwaitingConnection());
+            }
+        } catch (SQLException e) {
+            hikari.put("error", e.getMessage());
+        }
+        // acquire/usage timings are the hikaricp.connections.* meters under /actuator/metrics
+        return hikari;
+    }
+
+    private List<Map<String, Object>> endpoints() {
+        return meterRegistry.find(SqlStatementCountFilter.METRIC_NAME).summaries().stream()
+                .sorted(Comparator.comparingDouble(DistributionSummary::max).reversed())
+                .map(summary -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("method", summary.getId().getTag("method"));
+                    entry.put("uri", summary.getId().getTag("uri"));
+                    entry.put("requests", summary.count());
+                    entry.put("meanStatements", summary.mean());
+                    entry.put("maxStatements", summary.max());
+                    return entry;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,68 @@
+package com.simplytrack.strack_trade_service.controller;
+
+import com.simplytrack.strack_trade_service.entity.CorporateAction;
+import com.simplytrack.strack_trade_service.repository.CorporateActionRepository;
+import com.simplytrack.strack_trade_service.service.CorporateActionService;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Splits and ticker changes, restricted to admins (SecurityConfig): they restate every user's trades.
+ * Creating an action does not touch trades; applying it does, once.
+ */
+@RestController
+@RequestMapping("/api/trades/corporate-actions")
+public class CorporateActionController {
+
+    private final CorporateActionService corporateActionService;
+    private final CorporateActionRepository actionRepository;
+
+    public CorporateActionController(CorporateActionService corporateActionService,
+            CorporateActionRepository actionRepository) {
+        this.corporateActionService = corporateActionService;
+        this.actionRepository = actionRepository;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CorporateAction>> getActions() {
+        return ResponseEntity.ok(actionRepository.findAllByOrderByExDateDescIdDesc());
+    }
+
+    /**
+     * POST /api/trades/corporate-actions
+     * {"symbol": "NVDA", "type": "SPLIT", "exDate": "2024-06-10", "ratioTo": 10, "ratioFrom": 1}
+     * {"symbol": "FB", "type": "RENAME", "exDate": "2022-06-09", "newSymbol": "META"}
+     */
+    @PostMapping
+    public ResponseEntity<?> createAction(@RequestBody CorporateAction action) {
+        try {
+            return ResponseEntity.ok(corporateActionService.create(action));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body("This action is already recorded");
+        }
+    }
+
+    /** POST /api/trades/corporate-actions/{id}/apply: restates the trades before the ex-date. */
+    @PostMapping("/{id}/apply")
+    public ResponseEntity<?> applyAction(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(corporateActionService.apply(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /** POST /api/trades/corporate-actions/apply: applies all pending actions in ex-date order. */
+    @PostMapping("/apply")
+    public ResponseEntity<List<CorporateAction>> applyPending() {
+        return ResponseEntity.ok(corporateActionService.applyPending());
+    }
+}
@@ -0,0 +1,61 @@
+package com.simplytrack.strack_trade_service.controller;
+
+import com.simplytrack.strack_trade_service.entity.PortfolioSettings;
+import com.simplytrack.strack_trade_service.repository.PortfolioSettingsRepository;
+import com.simplytrack.strack_trade_service.service.EquityCurveService;
+import com.simplytrack.strack_trade_service.service.TradeSimulationService;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Matching settings per portfolio, currently the lot relief method (FIFO, LIFO, HIFO, SPECIFIC_ID).
+ * A change applies from the next POST /api/trades/match.
+ */
+@RestController
+@RequestMapping("/api/trades/portfolios")
+public class PortfolioSettingsController {
+
+    private final PortfolioSettingsRepository settingsRepository;
+    private final EquityCurveService equityCurves;
+    private final TradeSimulationService simulation;
+
+    public PortfolioSettingsController(PortfolioSettingsRepository settingsRepository,
+            EquityCurveService equityCurves, TradeSimulationService simulation) {
+        this.settingsRepository = settingsRepository;
+        this.equityCurves = equityCurves;
+        this.simulation = simulation;
+    }
+
+    @GetMapping("/settings")
+    public ResponseEntity<List<PortfolioSettings>> getSettings(Authentication authentication) {
+        return ResponseEntity.ok(settingsRepository.findByUserId(authentication.getName()));
+    }
+
+    /**
+     * PUT /api/trades/portfolios/{name}/settings
+     * Body: {"lotRelief": "HIFO"}
+     */
+    @PutMapping("/{name}/settings")
+    public ResponseEntity<?> saveSettings(@PathVariable String name, @RequestBody PortfolioSettings request,
+            Authentication authentication) {
+        if (request.getLotRelief() == null) {
+            return ResponseEntity.badRequest().body("lotRelief is required");
+        }
+        String userId = authentication.getName();
+        PortfolioSettings settings = settingsRepository.findByUserIdAndPortfolioName(userId, name)
+                .orElseGet(PortfolioSettings::new);
+        settings.setUserId(userId);
+        settings.setPortfolioName(name);
+        settings.setLotRelief(request.getLotRelief());
+        PortfolioSettings saved = settingsRepository.save(settings);
+        // the next match run may pair every sale differently
+        equityCurves.invalidate(userId);
+        // what-if runs relieve lots with the portfolio's method, so the cached snapshot is stale too
+        simulation.evict(userId);
+        return ResponseEntity.ok(saved);
+    }
+}
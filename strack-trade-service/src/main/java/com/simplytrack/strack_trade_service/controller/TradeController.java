@@ -2,15 +2,24 @@ package com.simplytrack.strack_trade_service.controller;
 
 import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
 import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.service.CorporateActionService;
+import com.simplytrack.strack_trade_service.service.EquityCurveService;
+import com.simplytrack.strack_trade_service.service.TaxReportService;
+import com.simplytrack.strack_trade_service.service.TradeImportService;
 import com.simplytrack.strack_trade_service.service.TradeMatchingService;
+import com.simplytrack.strack_trade_service.service.TradeSimulationService;
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
+import com.simplytrack.strack_trade_service.DTO.ImportResultDTO;
 import com.simplytrack.strack_trade_service.DTO.MatchedTradeDTO;
 import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
 import com.simplytrack.strack_trade_service.entity.StockMatch;
 // import com.simplytrack.strack_trade_service.config.JwtTokenUtil;
 import com.simplytrack.strack_trade_service.entity.Trade;
 
 import org.apache.hc.core5.http.HttpStatus;
 import org.springframework.dao.DataAccessException;
+import org.springframework.format.annotation.DateTimeFormat;
 // import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -18,9 +27,17 @@ import org.springframework.web.bind.annotation.*;
 
 import lombok.extern.slf4j.Slf4j;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import java.util.logging.Logger;
@@ -36,27 +53,77 @@ public class TradeController {
     private final TradeRepository tradeRepository;
     private final MatchedTradeRepository matchRepo;
     private final TradeMatchingService matcher;
+    private final TradeImportService importService;
+    private final CorporateActionService corporateActions;
+    private final TradeSimulationService simulation;
+    private final EquityCurveService equityCurves;
+    private final TaxReportService taxReports;
 
     Logger logger = Logger.getLogger(getClass().getName());
 
     public TradeController(TradeRepository tradeRepository, TradeMatchingService matcher,
-            MatchedTradeRepository matchRepo) {
+            MatchedTradeRepository matchRepo, TradeImportService importService,
+            CorporateActionService corporateActions, TradeSimulationService simulation,
+            EquityCurveService equityCurves, TaxReportService taxReports) {
         this.tradeRepository = tradeRepository;
         this.matcher = matcher;
         this.matchRepo = matchRepo;
+        this.importService = importService;
+        this.corporateActions = corporateActions;
+        this.simulation = simulation;
+        this.equityCurves = equityCurves;
+        this.taxReports = taxReports;
     }
 
     @PostMapping
-    public ResponseEntity<Trade> createTrade(@RequestBody Trade tradeRequest, Authentication authentication) {
+    public ResponseEntity<?> createTrade(@RequestBody Trade tradeRequest, Authentication authentication) {
         String userId = authentication.getName();
-        System.out.println("I am in create trade");
+        log.debug("Creating trade for {}", userId);
         // String userId2 = jwtTokenUtil.getUsernameFromToken()
 
+        String invalidOption = populateOptionFields(tradeRequest);
+        if (invalidOption != null) {
+            return ResponseEntity.badRequest().body(invalidOption);
+        }
         tradeRequest.setUserId(userId);
+        // a trade entered from before an applied split is stored in post-split shares
+        corporateActions.restate(List.of(tradeRequest));
         Trade savedTrade = tradeRepository.save(tradeRequest);
+        simulation.evict(userId);
+        equityCurves.invalidateFrom(userId, savedTrade.getTradeDate());
         return ResponseEntity.ok(savedTrade);
     }
 
+    /**
+     * Checks an option trade's OCC symbol and sets usymbol, expiration, strike and type from it, rather
+     * than storing whatever the client parsed.
+     * @return an error message, or null if the trade is valid (or not an option)
+     */
+    private String populateOptionFields(Trade trade) {
+        if (trade instanceof OptionTrade optionTrade) {
+            try {
+                OccSymbolParser.populate(optionTrade);
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    /** Earliest of the dates, or null (i.e. all dates) if one is missing. */
+    private static LocalDateTime earliest(List<LocalDateTime> dates) {
+        LocalDateTime earliest = null;
+        for (LocalDateTime date : dates) {
+            if (date == null) {
+                return null;
+            }
+            if (earliest == null || date.isBefore(earliest)) {
+                earliest = date;
+            }
+        }
+        return earliest;
+    }
+
     private Long convertToLong(Object obj) {
         if (obj == null)
             return null;
@@ -121,6 +188,8 @@ public class TradeController {
                     return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR)
                             .body("Failed to delete trade");
                 }
+                simulation.evict(userId);
+                equityCurves.invalidateFrom(userId, trade.getTradeDate());
 
                 return ResponseEntity.ok().body(
                         Map.of(
@@ -155,31 +224,63 @@ public class TradeController {
             return ResponseEntity.notFound().build();
         }
 
-        // 2. Update fields
+        // 2. Validate the option symbol, as on create
+        String invalidOption = populateOptionFields(updatedTrade);
+        if (invalidOption != null) {
+            return ResponseEntity.badRequest().body(invalidOption);
+        }
+
+        // 3. Update fields
         Trade trade = existingTrade.get();
+        LocalDateTime previousDate = trade.getTradeDate();
+        // a stored trade is already restated; only a new symbol or date is entered as of that date
+        if (!Objects.equals(updatedTrade.getSymbol(), trade.getSymbol())
+                || !Objects.equals(updatedTrade.getTradeDate(), previousDate)) {
+            corporateActions.restate(List.of(updatedTrade));
+        }
         trade.setSymbol(updatedTrade.getSymbol());
         trade.setQuantity(updatedTrade.getQuantity());
         trade.setPrice(updatedTrade.getPrice());
         trade.setCommission(updatedTrade.getCommission());
         trade.setAction(updatedTrade.getAction());
         trade.setTradeDate(updatedTrade.getTradeDate());
+        // a body without reliefLotId keeps the lot chosen earlier rather than clearing it
+        if (updatedTrade.getReliefLotId() != null) {
+            trade.setReliefLotId(updatedTrade.getReliefLotId());
+        }
+        if (trade instanceof OptionTrade option && updatedTrade instanceof OptionTrade updatedOption) {
+            option.setUsymbol(updatedOption.getUsymbol());
+            option.setOptionType(updatedOption.getOptionType());
+            option.setExpirationDate(updatedOption.getExpirationDate());
+            option.setStrikePrice(updatedOption.getStrikePrice());
+            option.setSharesPerContract(updatedOption.getSharesPerContract());
+        }
 
-        // 3. Recalculate net amount if needed
+        // 4. Recalculate net amount if needed
         trade.setNetAmount(
                 trade.getPrice().multiply(trade.getQuantity())
                         .subtract(trade.getCommission()));
 
-        // 4. Save updated trade
+        // 5. Save updated trade
         Trade savedTrade = tradeRepository.save(trade);
+        simulation.evict(userId);
+        equityCurves.invalidateFrom(userId, earliest(Arrays.asList(previousDate, savedTrade.getTradeDate())));
 
         return ResponseEntity.ok(savedTrade);
     }
 
     @PostMapping("/batch")
-    public ResponseEntity<List<Trade>> createBatchTrades(@RequestBody List<Trade> trades,
+    public ResponseEntity<?> createBatchTrades(@RequestBody List<Trade> trades,
             Authentication authentication) {
         String userId = authentication.getName();
 
+        for (int i = 0; i < trades.size(); i++) {
+            String invalidOption = populateOptionFields(trades.get(i));
+            if (invalidOption != null) {
+                return ResponseEntity.badRequest().body("Trade " + (i + 1) + ": " + invalidOption);
+            }
+        }
+
         trades.forEach(trade -> {
             // Set user ID
             trade.setUserId(userId);
@@ -205,8 +306,11 @@ public class TradeController {
             logger.info(() -> "Trade Date: " + trade.getTradeDate());
         }
 
-        List<Trade> savedTrades = tradeRepository.saveAll(trades);
-        return ResponseEntity.ok(savedTrades);
+        // rows already stored (same fingerprint) are skipped, so re-posting an overlapping statement is safe
+        ImportResultDTO result = importService.saveBatch(trades);
+        simulation.evict(userId);
+        equityCurves.invalidateFrom(userId, earliest(trades.stream().map(Trade::getTradeDate).toList()));
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping
@@ -223,26 +327,84 @@ public class TradeController {
     }
 
     @GetMapping("/matchedTrades")
-    public ResponseEntity<List<MatchedTradeDTO>> getMatchedTradesByUser(
-            @RequestParam("userId") String userId) {
-        
-        List<MatchedTradeDTO> matchedTrades = 
+    public ResponseEntity<List<MatchedTradeDTO>> getMatchedTradesByUser(Authentication authentication) {
+        String userId = authentication.getName();
+        List<MatchedTradeDTO> matchedTrades =
             matchRepo.findMatchedTradesByUser(userId);
-            
+
         return ResponseEntity.ok(matchedTrades);
     }
 
     /**
      * POST /api/trades/match
-     * Triggers matching across all portfolios & returns the list of new matches.
+     * Re-runs matching across all of the user's portfolios & returns the list of new matches.
      */
     @PostMapping("/match")
-    public ResponseEntity<List<MatchedTrade>> matchTrades(Authentication auth) {
+    public ResponseEntity<List<MatchedTradeDTO>> matchTrades(Authentication auth) {
         // optional: scope to userId only
         matcher.resetMatchTrades(auth);
         matcher.resetMatchQuantityLeft(auth);
-        List<MatchedTrade> matched = matcher.matchAll();
-        return ResponseEntity.ok(matched);
+        List<MatchedTrade> matched = matcher.matchAll(auth);
+        simulation.evict(auth.getName());
+        equityCurves.matchesRebuilt(auth.getName());
+        return ResponseEntity.ok(matched.stream().map(MatchedTradeDTO::from).toList());
+    }
+
+    /**
+     * POST /api/trades/simulate
+     * What-if: the matches the given trades (e.g. a SELL of 100 shares today) would produce against the
+     * current open lots. Read-only; nothing is stored.
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<?> simulateTrades(@RequestBody List<Trade> trades, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(simulation.simulate(authentication.getName(), trades));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/trades/equityCurve?portfolio=&symbol=&tradeType=&from=2024-01-01&to=2024-12-31&maxPoints=500
+     * Daily cumulative realized P&L as of the last match run, plus the position when portfolio, symbol and
+     * tradeType pick a single series. All
+     * filters are optional.
+     */
+    @GetMapping("/equityCurve")
+    public ResponseEntity<?> getEquityCurve(@RequestParam(required = false) String portfolio,
+            @RequestParam(required = false) String symbol, @RequestParam(required = false) String tradeType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "500") int maxPoints, Authentication authentication) {
+        if (maxPoints < 2) {
+            return ResponseEntity.badRequest().body("maxPoints must be at least 2");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("from is after to");
+        }
+        return ResponseEntity.ok(equityCurves.curve(authentication.getName(), portfolio, symbol,
+                tradeType == null ? null : tradeType.toUpperCase(), from, to, maxPoints));
+    }
+
+    /**
+     * GET /api/trades/tax/form8949?year=2024&portfolio=
+     * CSV download of the year's matches as Form 8949 lines, streamed as it is read. portfolio is optional.
+     */
+    @GetMapping("/tax/form8949")
+    public void exportForm8949(@RequestParam int year, @RequestParam(required = false) String portfolio,
+            Authentication authentication, HttpServletResponse response) throws IOException {
+        if (year < 1900 || year > LocalDate.now().getYear()) {
+            response.sendError(HttpStatus.SC_BAD_REQUEST, "year must be between 1900 and this year");
+            return;
+        }
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"form8949-" + year + ".csv\"");
+        try {
+            taxReports.writeForm8949(authentication.getName(), year, portfolio, response.getOutputStream());
+        } catch (UncheckedIOException e) {
+            // the client closed the download; nothing left to send it
+            log.debug("Form 8949 export aborted: {}", e.getMessage());
+        }
     }
 
     // @Transactional
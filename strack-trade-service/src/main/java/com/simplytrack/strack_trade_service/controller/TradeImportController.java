@@ -0,0 +1,118 @@
+package com.simplytrack.strack_trade_service.controller;
+
+import com.simplytrack.strack_trade_service.DTO.ImportResultDTO;
+import com.simplytrack.strack_trade_service.entity.ImportMappingProfile;
+import com.simplytrack.strack_trade_service.repository.ImportMappingProfileRepository;
+import com.simplytrack.strack_trade_service.service.EquityCurveService;
+import com.simplytrack.strack_trade_service.service.TradeImportService;
+import com.simplytrack.strack_trade_service.service.TradeSimulationService;
+import com.simplytrack.strack_trade_service.service.imports.ImportRowMapper;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Statement upload: the raw CSV/XLSX file goes to the server, which parses, normalizes and saves it, instead
+ * of the browser parsing it and posting the trades to /api/trades/batch. Column mappings can be saved as
+ * named profiles and reused for the next statement from the same broker.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/trades/import")
+public class TradeImportController {
+
+    private final TradeImportService importService;
+    private final ImportMappingProfileRepository profileRepository;
+    private final TradeSimulationService simulation;
+    private final EquityCurveService equityCurves;
+
+    public TradeImportController(TradeImportService importService,
+            ImportMappingProfileRepository profileRepository, TradeSimulationService simulation,
+            EquityCurveService equityCurves) {
+        this.importService = importService;
+        this.profileRepository = profileRepository;
+        this.simulation = simulation;
+        this.equityCurves = equityCurves;
+    }
+
+    /**
+     * POST /api/trades/import (multipart)
+     * file: the statement; portfolioName: target portfolio; profile: optional saved mapping name.
+     * Without a profile, columns are recognized by their usual header names.
+     */
+    @PostMapping(consumes = "multipart/form-data")
+    public ResponseEntity<?> importTrades(@RequestParam("file") MultipartFile file,
+            @RequestParam("portfolioName") String portfolioName,
+            @RequestParam(value = "profile", required = false) String profileName,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        Map<String, String> mapping = null;
+        if (profileName != null && !profileName.isBlank()) {
+            Optional<ImportMappingProfile> profile = profileRepository.findByUserIdAndName(userId, profileName);
+            if (profile.isEmpty()) {
+                return ResponseEntity.badRequest().body("Unknown import profile " + profileName);
+            }
+            mapping = profile.get().getColumns();
+        }
+        try (InputStream in = file.getInputStream()) {
+            ImportResultDTO result = importService.importTrades(userId, portfolioName, file.getOriginalFilename(),
+                    in, mapping);
+            simulation.evict(userId);
+            equityCurves.invalidate(userId);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.warn("Unreadable import file {} from {}: {}", file.getOriginalFilename(), userId, e.getMessage());
+            return ResponseEntity.badRequest().body("Could not read the file: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/profiles")
+    public ResponseEntity<List<ImportMappingProfile>> getProfiles(Authentication authentication) {
+        return ResponseEntity.ok(profileRepository.findByUserIdOrderByName(authentication.getName()));
+    }
+
+    /**
+     * PUT /api/trades/import/profiles/{name}
+     * Body: trade field -> column header, e.g. {"action": "Action", "tradeDate": "Run Date", ...}
+     */
+    @PutMapping("/profiles/{name}")
+    public ResponseEntity<?> saveProfile(@PathVariable String name, @RequestBody Map<String, String> columns,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        List<String> unknown = columns.keySet().stream()
+                .filter(field -> !ImportRowMapper.FIELDS.contains(field))
+                .toList();
+        if (!unknown.isEmpty()) {
+            return ResponseEntity.badRequest().body("Unknown fields " + unknown + "; expected " + ImportRowMapper.FIELDS);
+        }
+        ImportMappingProfile profile = profileRepository.findByUserIdAndName(userId, name)
+                .orElseGet(ImportMappingProfile::new);
+        profile.setUserId(userId);
+        profile.setName(name);
+        profile.getColumns().clear();
+        profile.getColumns().putAll(columns);
+        return ResponseEntity.ok(profileRepository.save(profile));
+    }
+
+    @DeleteMapping("/profiles/{name}")
+    public ResponseEntity<Void> deleteProfile(@PathVariable String name, Authentication authentication) {
+        Optional<ImportMappingProfile> profile = profileRepository.findByUserIdAndName(authentication.getName(), name);
+        if (profile.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        profileRepository.delete(profile.get());
+        return ResponseEntity.noContent().build();
+    }
+}
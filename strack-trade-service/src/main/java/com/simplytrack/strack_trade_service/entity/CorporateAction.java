@@ -0,0 +1,108 @@
+package com.simplytrack.strack_trade_service.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.simplytrack.strack_trade_service.types.CorporateActionType;
+
+/**
+ * A split or ticker change effective on {@code exDate}. Trades dated before the ex-date are restated by
+ * CorporateActionService: a SPLIT of ratioTo:ratioFrom (10:1 -> ratioTo 10, ratioFrom 1; a 1:4 reverse
+ * split -> ratioTo 1, ratioFrom 4) multiplies quantity by ratioTo/ratioFrom and divides price by it; a
+ * RENAME moves {@code symbol} to {@code newSymbol}. {@code appliedAt} is set once the trades are restated.
+ */
+@Entity
+@Table(name = "corporate_actions",
+        uniqueConstraints = @UniqueConstraint(columnNames = { "symbol", "type", "exDate" }))
+public class CorporateAction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String symbol;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CorporateActionType type;
+    @Column(nullable = false)
+    private LocalDate exDate;
+    private BigDecimal ratioTo;
+    private BigDecimal ratioFrom;
+    private String newSymbol;
+    private LocalDateTime appliedAt;
+    private long tradesAdjusted;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSymbol() {
+        return this.symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public CorporateActionType getType() {
+        return this.type;
+    }
+
+    public void setType(CorporateActionType type) {
+        this.type = type;
+    }
+
+    public LocalDate getExDate() {
+        return this.exDate;
+    }
+
+    public void setExDate(LocalDate exDate) {
+        this.exDate = exDate;
+    }
+
+    public BigDecimal getRatioTo() {
+        return this.ratioTo;
+    }
+
+    public void setRatioTo(BigDecimal ratioTo) {
+        this.ratioTo = ratioTo;
+    }
+
+    public BigDecimal getRatioFrom() {
+        return this.ratioFrom;
+    }
+
+    public void setRatioFrom(BigDecimal ratioFrom) {
+        this.ratioFrom = ratioFrom;
+    }
+
+    public String getNewSymbol() {
+        return this.newSymbol;
+    }
+
+    public void setNewSymbol(String newSymbol) {
+        this.newSymbol = newSymbol;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return this.appliedAt;
+    }
+
+    public void setAppliedAt(LocalDateTime appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+
+    public long getTradesAdjusted() {
+        return this.tradesAdjusted;
+    }
+
+    public void setTradesAdjusted(long tradesAdjusted) {
+        this.tradesAdjusted = tradesAdjusted;
+    }
+}
@@ -0,0 +1,61 @@
+package com.simplytrack.strack_trade_service.entity;
+
+import jakarta.persistence.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A saved column mapping for one broker's statement format: trade field (action, tradeDate, symbol, ...)
+ * -> column header in the file. Named per user, e.g. "fidelity" or "schwab".
+ */
+@Entity
+@Table(name = "import_mapping_profiles",
+        uniqueConstraints = @UniqueConstraint(columnNames = { "userId", "name" }))
+public class ImportMappingProfile {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String userId;
+    @Column(nullable = false)
+    private String name;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "import_mapping_columns", joinColumns = @JoinColumn(name = "profile_id"))
+    @MapKeyColumn(name = "field")
+    @Column(name = "column_name", nullable = false)
+    private Map<String, String> columns = new HashMap<>();
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return this.userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, String> getColumns() {
+        return this.columns;
+    }
+
+    public void setColumns(Map<String, String> columns) {
+        this.columns = columns;
+    }
+}
@@ -50,6 +50,8 @@ public abstract class MatchedTrade {
     private BigDecimal costBasis;
     private BigDecimal stGainOrLoss;
     private BigDecimal ltGainOrLoss;
+    /** loss disallowed by the wash-sale rule (positive; added to the replacement lot's basis), or null */
+    private BigDecimal washSaleDisallowed;
     
     public LocalDateTime getDateAcquired() {
         return this.dateAcquired;
@@ -99,6 +101,14 @@ public abstract class MatchedTrade {
         this.ltGainOrLoss = ltGainOrLoss;
     }
 
+    public BigDecimal getWashSaleDisallowed() {
+        return this.washSaleDisallowed;
+    }
+
+    public void setWashSaleDisallowed(BigDecimal washSaleDisallowed) {
+        this.washSaleDisallowed = washSaleDisallowed;
+    }
+
 
     public Long getId() {
         return this.id;
@@ -163,6 +173,7 @@ public abstract class MatchedTrade {
             ", costBasis='" + getCostBasis() + "'" +
             ", stGainOrLoss='" + getStGainOrLoss() + "'" +
             ", ltGainOrLoss='" + getLtGainOrLoss() + "'" +
+            ", washSaleDisallowed='" + getWashSaleDisallowed() + "'" +
             "}";
     }
 
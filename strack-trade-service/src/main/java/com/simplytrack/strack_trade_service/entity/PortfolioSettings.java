@@ -0,0 +1,57 @@
+package com.simplytrack.strack_trade_service.entity;
+
+import jakarta.persistence.*;
+
+import com.simplytrack.strack_trade_service.types.LotRelief;
+
+/**
+ * Per-portfolio matching settings. Portfolios are only names on trades, so a portfolio without a row here
+ * uses the defaults (FIFO lot relief).
+ */
+@Entity
+@Table(name = "portfolio_settings",
+        uniqueConstraints = @UniqueConstraint(columnNames = { "userId", "portfolioName" }))
+public class PortfolioSettings {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String userId;
+    @Column(nullable = false)
+    private String portfolioName;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LotRelief lotRelief = LotRelief.FIFO;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return this.userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getPortfolioName() {
+        return this.portfolioName;
+    }
+
+    public void setPortfolioName(String portfolioName) {
+        this.portfolioName = portfolioName;
+    }
+
+    public LotRelief getLotRelief() {
+        return this.lotRelief;
+    }
+
+    public void setLotRelief(LotRelief lotRelief) {
+        this.lotRelief = lotRelief;
+    }
+}
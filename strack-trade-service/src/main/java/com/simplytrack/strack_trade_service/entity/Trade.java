@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.simplytrack.strack_trade_service.types.ActionType;
@@ -12,7 +13,7 @@ import com.simplytrack.strack_trade_service.types.TradeType;
 
 
 @Entity
-@Table(name = "trades")
+@Table(name = "trades", indexes = @Index(name = "idx_trades_symbol_trade_date", columnList = "symbol, tradeDate"))
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "trade_type", discriminatorType = DiscriminatorType.STRING)
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "trade_type")
@@ -51,6 +52,17 @@ public abstract class Trade {
     // @Column(nullable = false, columnDefinition = "DECIMAL(38,2) DEFAULT 0.00")
     private BigDecimal matchedQtyLeft ;
 
+    /** content hash of a statement row (see TradeFingerprint); null for trades entered by hand */
+    @JsonIgnore
+    @Column(unique = true, length = 64)
+    private String fingerprint;
+
+    /** wash-sale losses added to the basis of the still-open quantity (set by matching), or null */
+    private BigDecimal basisAdjustment;
+
+    /** for a closing trade in a SPECIFIC_ID portfolio: the id of the lot it closes first, or null */
+    private Long reliefLotId;
+
     public Trade() {
         this.matchedQtyLeft = this.quantity; // Initialize with original quantity
     }
@@ -65,6 +77,30 @@ public abstract class Trade {
     }
 
 
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public BigDecimal getBasisAdjustment() {
+        return this.basisAdjustment;
+    }
+
+    public void setBasisAdjustment(BigDecimal basisAdjustment) {
+        this.basisAdjustment = basisAdjustment;
+    }
+
+    public Long getReliefLotId() {
+        return this.reliefLotId;
+    }
+
+    public void setReliefLotId(Long reliefLotId) {
+        this.reliefLotId = reliefLotId;
+    }
+
     public TradeType getTradeType() {
         return this.tradeType;
     }
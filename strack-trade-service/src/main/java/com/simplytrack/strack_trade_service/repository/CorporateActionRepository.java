@@ -0,0 +1,16 @@
+package com.simplytrack.strack_trade_service.repository;
+
+import com.simplytrack.strack_trade_service.entity.CorporateAction;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CorporateActionRepository extends JpaRepository<CorporateAction, Long> {
+
+    List<CorporateAction> findByAppliedAtIsNullOrderByExDateAscIdAsc();
+
+    List<CorporateAction> findByAppliedAtIsNotNullOrderByExDateAscIdAsc();
+
+    List<CorporateAction> findAllByOrderByExDateDescIdDesc();
+}
@@ -0,0 +1,15 @@
+package com.simplytrack.strack_trade_service.repository;
+
+import com.simplytrack.strack_trade_service.entity.ImportMappingProfile;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ImportMappingProfileRepository extends JpaRepository<ImportMappingProfile, Long> {
+
+    List<ImportMappingProfile> findByUserIdOrderByName(String userId);
+
+    Optional<ImportMappingProfile> findByUserIdAndName(String userId, String name);
+}
@@ -1,13 +1,19 @@
 package com.simplytrack.strack_trade_service.repository;
 import com.simplytrack.strack_trade_service.DTO.MatchedTradeDTO;
+import com.simplytrack.strack_trade_service.DTO.RealizedGainDTO;
+import com.simplytrack.strack_trade_service.DTO.TaxLotDTO;
 import com.simplytrack.strack_trade_service.entity.MatchedTrade;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 public interface MatchedTradeRepository extends JpaRepository<MatchedTrade, Long> {
@@ -26,10 +32,11 @@ public interface MatchedTradeRepository extends JpaRepository<MatchedTrade, Long
     @Query("DELETE FROM OptionMatch m WHERE m.buyTrade.userId = :userId OR m.sellTrade.userId = :userId")
     void deleteOptionMatchesByUser(@Param("userId") String userId);
 
-    @Query("SELECT " +
+    @Query("SELECT NEW com.simplytrack.strack_trade_service.DTO.MatchedTradeDTO(" +
            "m.id, " +
-           "m.buyTrade.id, " +
-           "m.sellTrade.id, " +
+           "b.id, " +
+           "s.id, " +
+           "s.symbol, " +
            "m.matchTimestamp, " +
            "m.matchedPrice, " +
            "m.matchedQuantity, " +
@@ -38,26 +45,32 @@ public interface MatchedTradeRepository extends JpaRepository<MatchedTrade, Long
            "m.proceeds, " +
            "m.costBasis, " +
            "m.stGainOrLoss, " +
-           "m.ltGainOrLoss " +
-           "FROM MatchedTrade m " +
-           "WHERE m.buyTrade.userId = :userId OR m.sellTrade.userId = :userId")
+           "m.ltGainOrLoss, " +
+           "m.washSaleDisallowed, " +
+           "CASE WHEN TYPE(m) = OptionMatch THEN 'OPTION' ELSE 'STOCK' END) " +
+           "FROM MatchedTrade m JOIN m.buyTrade b JOIN m.sellTrade s " +
+           "WHERE b.userId = :userId OR s.userId = :userId")
     List<MatchedTradeDTO> findMatchedTradesByUser(@Param("userId") String userId);
 
-        //    "TYPE(m)) " +  // Gets the discriminator value
-    //     @Query("SELECT NEW com.simplytrack.strack_trade_service.dto.MatchedTradeDTO(" +
-    //        "m.id, " +
-    //        "m.buyTrade.id, " +
-    //        "m.sellTrade.id, " +
-    //        "m.matchTimestamp, " +
-    //        "m.matchedPrice, " +
-    //        "m.matchedQuantity, " +
-    //        "m.dateAcquired, " +
-    //        "m.dateSold, " +
-    //        "m.proceeds, " +
-    //        "m.costBasis, " +
-    //        "m.stGainOrLoss, " +
-    //        "m.ltGainOrLoss, " +
-    //        "FROM MatchedTrade m " +
-    //        "WHERE m.buyTrade.userId = :userId OR m.sellTrade.userId = :userId")
-    // List<MatchedTradeDTO> findMatchedTradesByUser(@Param("userId") String userId);
-}
\ No newline at end of file
+    /** Realized gains from {@code from} on, in date-sold order; stream inside a transaction. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT NEW com.simplytrack.strack_trade_service.DTO.RealizedGainDTO(" +
+           "s.portfolioName, s.symbol, CASE WHEN TYPE(m) = OptionMatch THEN 'OPTION' ELSE 'STOCK' END, " +
+           "m.dateSold, m.stGainOrLoss, m.ltGainOrLoss) " +
+           "FROM MatchedTrade m JOIN m.sellTrade s " +
+           "WHERE s.userId = :userId AND m.dateSold >= :from ORDER BY m.dateSold")
+    Stream<RealizedGainDTO> streamRealizedGains(@Param("userId") String userId, @Param("from") LocalDateTime from);
+
+    /** Matches sold in [start, end), optionally in one portfolio, in date-sold order; stream inside a transaction. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT NEW com.simplytrack.strack_trade_service.DTO.TaxLotDTO(" +
+           "s.symbol, CASE WHEN TYPE(m) = OptionMatch THEN 'OPTION' ELSE 'STOCK' END, m.matchedQuantity, " +
+           "m.dateAcquired, m.dateSold, m.proceeds, m.costBasis, m.stGainOrLoss, m.ltGainOrLoss, " +
+           "m.washSaleDisallowed) " +
+           "FROM MatchedTrade m JOIN m.sellTrade s " +
+           "WHERE s.userId = :userId AND m.dateSold >= :start AND m.dateSold < :end " +
+           "AND (:portfolio IS NULL OR s.portfolioName = :portfolio) " +
+           "ORDER BY m.dateSold, m.id")
+    Stream<TaxLotDTO> streamTaxLots(@Param("userId") String userId, @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end, @Param("portfolio") String portfolio);
+}
@@ -0,0 +1,15 @@
+package com.simplytrack.strack_trade_service.repository;
+
+import com.simplytrack.strack_trade_service.entity.PortfolioSettings;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PortfolioSettingsRepository extends JpaRepository<PortfolioSettings, Long> {
+
+    List<PortfolioSettings> findByUserId(String userId);
+
+    Optional<PortfolioSettings> findByUserIdAndPortfolioName(String userId, String portfolioName);
+}
@@ -1,18 +1,28 @@
 package com.simplytrack.strack_trade_service.repository;
+import com.simplytrack.strack_trade_service.DTO.ExpiringPositionDTO;
+import com.simplytrack.strack_trade_service.DTO.PositionChangeDTO;
 import com.simplytrack.strack_trade_service.entity.OptionTrade;
 import com.simplytrack.strack_trade_service.entity.StockTrade;
 import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
 
 import org.springframework.transaction.annotation.Transactional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TradeRepository extends JpaRepository<Trade, Long> {
 
@@ -43,10 +53,62 @@ public interface TradeRepository extends JpaRepository<Trade, Long> {
         @Param("end") LocalDateTime end
     );
 
+    /**
+     * Option contracts expiring in [start, end] that still have a net open quantity, one row per
+     * (user, portfolio, contract), in key order after the given cursor. Page with the last row's key:
+     * closing a position drops it from the result, so offsets would skip rows.
+     */
+    @Query("SELECT NEW com.simplytrack.strack_trade_service.DTO.ExpiringPositionDTO(" +
+           "o.userId, o.portfolioName, o.usymbol, MIN(o.symbol), MIN(o.expirationDate), " +
+           "SUM(CASE WHEN o.action IN (com.simplytrack.strack_trade_service.types.ActionType.BUY, " +
+           "com.simplytrack.strack_trade_service.types.ActionType.COVER) THEN o.quantity ELSE -o.quantity END)) " +
+           "FROM OptionTrade o " +
+           "WHERE o.expirationDate BETWEEN :start AND :end AND o.usymbol IS NOT NULL " +
+           "AND (o.userId > :userId OR (o.userId = :userId AND (o.portfolioName > :portfolio " +
+           "OR (o.portfolioName = :portfolio AND o.usymbol > :usymbol)))) " +
+           "GROUP BY o.userId, o.portfolioName, o.usymbol " +
+           "HAVING SUM(CASE WHEN o.action IN (com.simplytrack.strack_trade_service.types.ActionType.BUY, " +
+           "com.simplytrack.strack_trade_service.types.ActionType.COVER) THEN o.quantity ELSE -o.quantity END) <> 0 " +
+           "ORDER BY o.userId, o.portfolioName, o.usymbol")
+    List<ExpiringPositionDTO> findOpenExpiringPositions(
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end,
+        @Param("userId") String userId,
+        @Param("portfolio") String portfolio,
+        @Param("usymbol") String usymbol,
+        Pageable page
+    );
+
+    /** Lots of one contract that still have quantity to close, oldest first. */
+    @Query("SELECT o FROM OptionTrade o WHERE o.userId = :userId AND o.portfolioName = :portfolio " +
+           "AND o.usymbol = :usymbol AND o.action IN :actions AND o.matchedQtyLeft > 0 ORDER BY o.tradeDate")
+    List<OptionTrade> findOpenOptionLots(
+        @Param("userId") String userId,
+        @Param("portfolio") String portfolio,
+        @Param("usymbol") String usymbol,
+        @Param("actions") Collection<ActionType> actions
+    );
+
+    /** Trades with quantity not yet matched: the open lots (and unmatched closings) after the last match run. */
+    @Query("SELECT t FROM Trade t WHERE t.userId = :userId AND t.matchedQtyLeft > 0")
+    List<Trade> findUnmatchedByUserId(@Param("userId") String userId);
+
+    /** Position changes from {@code from} on, in trade-date order; stream inside a transaction. */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT NEW com.simplytrack.strack_trade_service.DTO.PositionChangeDTO(" +
+           "t.portfolioName, t.symbol, CASE WHEN TYPE(t) = OptionTrade THEN 'OPTION' ELSE 'STOCK' END, " +
+           "t.tradeDate, t.action, t.quantity) " +
+           "FROM Trade t WHERE t.userId = :userId AND t.tradeDate >= :from ORDER BY t.tradeDate")
+    Stream<PositionChangeDTO> streamPositionChanges(@Param("userId") String userId, @Param("from") LocalDateTime from);
+
     // Example for StockTrades (if needed):
     @Query("SELECT s FROM StockTrade s WHERE s.userId = :userId")
     List<StockTrade> findStockTradesByUserId(@Param("userId") String userId);
 
     List<Trade> findByMatchedQtyLeftGreaterThan(BigDecimal qty);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Trade t SET t.matchedQtyLeft = t.quantity, t.basisAdjustment = NULL WHERE t.userId = :userId")
+    int resetMatchedQtyLeft(@Param("userId") String userId);
+
 }
\ No newline at end of file
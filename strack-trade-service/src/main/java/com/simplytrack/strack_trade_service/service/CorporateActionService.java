@@ -0,0 +1,170 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.CorporateAction;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.repository.CorporateActionRepository;
+import com.simplytrack.strack_trade_service.types.CorporateActionType;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Restates trades for splits and ticker changes (CorporateAction). Applying an action is one set-based
+ * UPDATE over the trades dated before its ex-date (quantity, matchedQtyLeft and price, or symbol) plus one
+ * over the stock matches closed entirely before it, so a popular ticker's millions of lots are restated
+ * by the database in a single pass over the (symbol, trade_date) index instead of entity by entity.
+ *
+ * Splits restate stock trades only; option contracts are adjusted by the OCC with their own symbols.
+ * Matches that straddle the ex-date are rebuilt by the next matchAll(). Trades that arrive after an action
+ * was applied (a late statement import) are restated in memory by restate() before they are stored.
+ */
+@Slf4j
+@Service
+public class CorporateActionService {
+
+    private static final String SPLIT_TRADES = "UPDATE trades SET quantity = quantity * ? / ?, "
+            + "matched_qty_left = matched_qty_left * ? / ?, price = price * ? / ? "
+            + "WHERE trade_type = 'STOCK' AND symbol = ? AND trade_date < ?";
+
+    private static final String SPLIT_MATCHES = "UPDATE matched_trades m "
+            + "SET matched_quantity = m.matched_quantity * ? / ?, matched_price = m.matched_price * ? / ? "
+            + "FROM trades b WHERE m.buy_trade_id = b.id AND m.match_type = 'STOCK' AND b.symbol = ? "
+            + "AND m.date_acquired < ? AND m.date_sold < ?";
+
+    private static final String RENAME_TRADES = "UPDATE trades SET symbol = ? WHERE symbol = ? AND trade_date < ?";
+
+    private final CorporateActionRepository actionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EquityCurveService equityCurves;
+    private final TradeSimulationService simulation;
+
+    public CorporateActionService(CorporateActionRepository actionRepository, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, EquityCurveService equityCurves,
+            TradeSimulationService simulation) {
+        this.actionRepository = actionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.equityCurves = equityCurves;
+        this.simulation = simulation;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the action is incomplete (no symbol, ex-date, ratio or new symbol)
+     */
+    public CorporateAction create(CorporateAction action) {
+        if (action.getSymbol() == null || action.getSymbol().isBlank() || action.getType() == null
+                || action.getExDate() == null) {
+            throw new IllegalArgumentException("symbol, type and exDate are required");
+        }
+        if (action.getType() == CorporateActionType.SPLIT && (action.getRatioTo() == null
+                || action.getRatioFrom() == null || action.getRatioTo().signum() <= 0
+                || action.getRatioFrom().signum() <= 0)) {
+            throw new IllegalArgumentException("A split needs positive ratioTo and ratioFrom");
+        }
+        if (action.getType() == CorporateActionType.RENAME
+                && (action.getNewSymbol() == null || action.getNewSymbol().isBlank())) {
+            throw new IllegalArgumentException("A rename needs newSymbol");
+        }
+        action.setId(null);
+        action.setAppliedAt(null);
+        action.setTradesAdjusted(0);
+        return actionRepository.save(action);
+    }
+
+    /**
+     * Restates the trades before the action's ex-date, once.
+     * @throws IllegalArgumentException if there is no such action
+     * @throws IllegalStateException if it has already been applied
+     */
+    @Transactional
+    public CorporateAction apply(Long id) {
+        CorporateAction action = actionRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("No corporate action " + id));
+        if (action.getAppliedAt() != null) {
+            throw new IllegalStateException("Corporate action " + id + " was applied at " + action.getAppliedAt());
+        }
+        Date exDate = Date.valueOf(action.getExDate());
+        long adjusted;
+        if (action.getType() == CorporateActionType.SPLIT) {
+            BigDecimal to = action.getRatioTo();
+            BigDecimal from = action.getRatioFrom();
+            adjusted = jdbcTemplate.update(SPLIT_TRADES, to, from, to, from, from, to, action.getSymbol(), exDate);
+            int matches = jdbcTemplate.update(SPLIT_MATCHES, to, from, from, to, action.getSymbol(), exDate, exDate);
+            log.info("Split {} {}:{} ex {}: {} trades, {} matches restated", action.getSymbol(), to, from,
+                    action.getExDate(), adjusted, matches);
+        } else {
+            adjusted = jdbcTemplate.update(RENAME_TRADES, action.getNewSymbol(), action.getSymbol(), exDate);
+            log.info("Rename {} -> {} ex {}: {} trades restated", action.getSymbol(), action.getNewSymbol(),
+                    action.getExDate(), adjusted);
+        }
+        action.setAppliedAt(LocalDateTime.now());
+        action.setTradesAdjusted(adjusted);
+        equityCurves.invalidateAll();
+        // every holder of the symbol has restated lots
+        simulation.evictAll();
+        return actionRepository.save(action);
+    }
+
+    /** Applies every pending action in ex-date order, each in its own transaction. */
+    public List<CorporateAction> applyPending() {
+        List<CorporateAction> applied = new ArrayList<>();
+        for (CorporateAction pending : actionRepository.findByAppliedAtIsNullOrderByExDateAscIdAsc()) {
+            applied.add(transactionTemplate.execute(status -> apply(pending.getId())));
+        }
+        return applied;
+    }
+
+    /**
+     * Restates trades that are about to be stored as if they had been there when the applied actions ran:
+     * a buy from before a split that has been applied is stored in post-split shares. Call after the
+     * fingerprint is assigned, so it still identifies the statement row.
+     */
+    public void restate(List<? extends Trade> trades) {
+        List<CorporateAction> applied = actionRepository.findByAppliedAtIsNotNullOrderByExDateAscIdAsc();
+        if (applied.isEmpty()) {
+            return;
+        }
+        for (Trade trade : trades) {
+            if (trade.getTradeDate() == null) {
+                continue;
+            }
+            for (CorporateAction action : applied) {
+                if (!action.getSymbol().equals(trade.getSymbol())
+                        || !trade.getTradeDate().toLocalDate().isBefore(action.getExDate())) {
+                    continue;
+                }
+                if (action.getType() == CorporateActionType.RENAME) {
+                    // later actions (in ex-date order) see the new symbol
+                    trade.setSymbol(action.getNewSymbol());
+                } else if (!(trade instanceof OptionTrade)) {
+                    split(trade, action.getRatioTo(), action.getRatioFrom());
+                }
+            }
+        }
+    }
+
+    private static void split(Trade trade, BigDecimal to, BigDecimal from) {
+        if (trade.getQuantity() != null) {
+            trade.setQuantity(trade.getQuantity().multiply(to).divide(from, MathContext.DECIMAL64));
+        }
+        if (trade.getMatchedQtyLeft() != null) {
+            trade.setMatchedQtyLeft(trade.getMatchedQtyLeft().multiply(to).divide(from, MathContext.DECIMAL64));
+        }
+        if (trade.getPrice() != null) {
+            trade.setPrice(trade.getPrice().multiply(from).divide(to, MathContext.DECIMAL64));
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.EquityCurveDTO;
+import com.simplytrack.strack_trade_service.DTO.PositionChangeDTO;
+import com.simplytrack.strack_trade_service.DTO.RealizedGainDTO;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Daily realized P&L and position per (portfolio, symbol, stock/option) as step series, for charts.
+ *
+ * A user's series are built in one pass that merges two date-ordered streams, trades (position changes)
+ * and matched_trades (realized gains), and are kept in primitive arrays of changed days only. Writes
+ * don't rebuild them: a trade write marks its trade date, and everything before the earliest marked day
+ * is kept while the pass re-reads from that day on. Matches move only when POST /api/trades/match runs,
+ * so a trade write also holds its date back until matchesRebuilt() is called. With wash sales on, a trade
+ * changes the matches sold up to 30 days before it, so the rematch re-reads from that much earlier.
+ *
+ * There is no market price feed, so unrealized P&L is not part of the series; the position series shows
+ * what is held.
+ */
+@Slf4j
+@Service
+public class EquityCurveService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    /** Realized and position as step series over the days on which either changed. */
+    static final class Series {
+        int size;
+        int[] days = new int[16];
+        double[] realized = new double[16];
+        double[] position = new double[16];
+
+        void addRealized(int day, double amount) {
+            slot(day);
+            realized[size - 1] += amount;
+        }
+
+        void addPosition(int day, double delta) {
+            slot(day);
+            position[size - 1] += delta;
+        }
+
+        /** Drops the points from {@code day} on. */
+        void truncateFrom(int day) {
+            size = indexAtOrAfter(day);
+        }
+
+        /** First index whose day is >= {@code day}. */
+        int indexAtOrAfter(int day) {
+            int i = Arrays.binarySearch(days, 0, size, day);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        private void slot(int day) {
+            if (size > 0 && days[size - 1] == day) {
+                return;
+            }
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                realized = Arrays.copyOf(realized, size * 2);
+                position = Arrays.copyOf(position, size * 2);
+            }
+            days[size] = day;
+            // step series: a new point starts from the previous values
+            realized[size] = size > 0 ? realized[size - 1] : 0;
+            position[size] = size > 0 ? position[size - 1] : 0;
+            size++;
+        }
+    }
+
+    private record Key(String portfolioName, String tradeType, String symbol) {
+    }
+
+    /** One user's series; guarded by its own monitor. */
+    private static final class UserCurves {
+        final Map<Key, Series> series = new HashMap<>();
+        boolean built;
+        /** earliest day whose points are out of date, or null */
+        LocalDate dirtyFrom;
+    }
+
+    private final TradeRepository tradeRepository;
+    private final MatchedTradeRepository matchRepository;
+    private final TransactionTemplate readOnly;
+    private final int maxUsers;
+    private final int rematchLookbackDays;
+    private final Map<String, UserCurves> curves = new ConcurrentHashMap<>();
+    /** trade dates written since the user's last match run: the matches from there on will change */
+    private final Map<String, LocalDate> pendingRematch = new ConcurrentHashMap<>();
+
+    public EquityCurveService(TradeRepository tradeRepository, MatchedTradeRepository matchRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${trades.equity-curve.cache-max-users:1000}") int maxUsers,
+            @Value("${matching.wash-sales.enabled:true}") boolean washSalesEnabled) {
+        this.tradeRepository = tradeRepository;
+        this.matchRepository = matchRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.maxUsers = maxUsers;
+        // a purchase on day D can disallow the loss on a sale back to D - 30 (and restate it)
+        this.rematchLookbackDays = washSalesEnabled ? WashSaleDetector.WINDOW_DAYS : 0;
+    }
+
+    /**
+     * @param portfolio null for all portfolios
+     * @param symbol null for all symbols; position is only returned for a single series
+     * @param tradeType STOCK, OPTION or null for both
+     * @param from first day, or null for the start of the data
+     * @param to last day, or null for today
+     * @param maxPoints longer series are downsampled to about this many points (last value per bucket)
+     */
+    public EquityCurveDTO curve(String userId, String portfolio, String symbol, String tradeType,
+            LocalDate from, LocalDate to, int maxPoints) {
+        List<Series> selected = new ArrayList<>();
+        UserCurves user = refreshed(userId);
+        synchronized (user) {
+            user.series.forEach((key, series) -> {
+                if ((portfolio == null || portfolio.equals(key.portfolioName()))
+                        && (tradeType == null || tradeType.equals(key.tradeType()))
+                        && (symbol == null || symbol.equals(key.symbol()))) {
+                    selected.add(series);
+                }
+            });
+            int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+            int toDay = (int) (to == null ? LocalDate.now() : to).toEpochDay();
+            return downsample(combine(selected, fromDay, toDay), portfolio, symbol, tradeType, maxPoints);
+        }
+    }
+
+    /** A trade dated {@code tradeDate} was added, changed or deleted (null: don't know which dates). */
+    public void invalidateFrom(String userId, LocalDateTime tradeDate) {
+        LocalDate day = tradeDate == null ? LocalDate.MIN : tradeDate.toLocalDate();
+        pendingRematch.merge(userId, day, (a, b) -> a.isBefore(b) ? a : b);
+        markDirty(userId, day);
+    }
+
+    /** Everything of the user's may have changed (import, lot relief change). */
+    public void invalidate(String userId) {
+        invalidateFrom(userId, null);
+    }
+
+    /** Corporate actions restate every user's history. */
+    public void invalidateAll() {
+        curves.clear();
+    }
+
+    /**
+     * POST /api/trades/match ran: matches from the earliest trade written since the last run changed, or
+     * from the wash-sale window before it.
+     */
+    public void matchesRebuilt(String userId) {
+        LocalDate day = pendingRematch.remove(userId);
+        if (day != null) {
+            markDirty(userId, day.equals(LocalDate.MIN) ? day : day.minusDays(rematchLookbackDays));
+        }
+    }
+
+    private void markDirty(String userId, LocalDate day) {
+        UserCurves user = curves.get(userId);
+        if (user == null) {
+            return;
+        }
+        synchronized (user) {
+            if (user.dirtyFrom == null || day.isBefore(user.dirtyFrom)) {
+                user.dirtyFrom = day;
+            }
+        }
+    }
+
+    private UserCurves refreshed(String userId) {
+        UserCurves user = curves.get(userId);
+        if (user == null) {
+            if (curves.size() >= maxUsers) {
+                // crude bound; series are rebuilt from the database on demand
+                curves.clear();
+            }
+            user = curves.computeIfAbsent(userId, id -> new UserCurves());
+        }
+        synchronized (user) {
+            if (!user.built) {
+                build(userId, user, BEGINNING);
+                user.built = true;
+            } else if (user.dirtyFrom != null) {
+                LocalDateTime from = user.dirtyFrom.equals(LocalDate.MIN) ? BEGINNING : user.dirtyFrom.atStartOfDay();
+                int fromDay = (int) from.toLocalDate().toEpochDay();
+                user.series.values().forEach(series -> series.truncateFrom(fromDay));
+                build(userId, user, from);
+            }
+            user.dirtyFrom = null;
+        }
+        return user;
+    }
+
+    /** Merges the two date-ordered streams from {@code from} on into the user's series. */
+    private void build(String userId, UserCurves user, LocalDateTime from) {
+        long start = System.nanoTime();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<PositionChangeDTO> trades = tradeRepository.streamPositionChanges(userId, from);
+                    Stream<RealizedGainDTO> gains = matchRepository.streamRealizedGains(userId, from)) {
+                Iterator<PositionChangeDTO> tradeIt = trades.iterator();
+                Iterator<RealizedGainDTO> gainIt = gains.iterator();
+                PositionChangeDTO trade = tradeIt.hasNext() ? tradeIt.next() : null;
+                RealizedGainDTO gain = gainIt.hasNext() ? gainIt.next() : null;
+                while (trade != null || gain != null) {
+                    if (gain == null || (trade != null && !trade.tradeDate().isAfter(gain.dateSold()))) {
+                        apply(user, trade);
+                        trade = tradeIt.hasNext() ? tradeIt.next() : null;
+                    } else {
+                        apply(user, gain);
+                        gain = gainIt.hasNext() ? gainIt.next() : null;
+                    }
+                }
+            }
+        });
+        log.debug("Equity curves for {} from {} built in {} ms", userId, from.toLocalDate(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void apply(UserCurves user, PositionChangeDTO trade) {
+        if (trade.quantity() == null || trade.action() == null) {
+            return;
+        }
+        double quantity = trade.quantity().doubleValue();
+        double delta = switch (trade.action()) {
+            case BUY, COVER -> quantity;
+            case SELL, SHORT -> -quantity;
+        };
+        series(user, trade.portfolioName(), trade.tradeType(), trade.symbol())
+                .addPosition((int) trade.tradeDate().toLocalDate().toEpochDay(), delta);
+    }
+
+    private static void apply(UserCurves user, RealizedGainDTO gain) {
+        double amount = (gain.stGainOrLoss() == null ? 0 : gain.stGainOrLoss().doubleValue())
+                + (gain.ltGainOrLoss() == null ? 0 : gain.ltGainOrLoss().doubleValue());
+        series(user, gain.portfolioName(), gain.tradeType(), gain.symbol())
+                .addRealized((int) gain.dateSold().toLocalDate().toEpochDay(), amount);
+    }
+
+    private static Series series(UserCurves user, String portfolio, String tradeType, String symbol) {
+        return user.series.computeIfAbsent(new Key(portfolio, tradeType, symbol), key -> new Series());
+    }
+
+    /**
+     * Sums the selected series over [fromDay, toDay]: a point on every day any of them changed, plus one
+     * at fromDay carrying the values from before the range.
+     */
+    private static Series combine(List<Series> selected, int fromDay, int toDay) {
+        Series out = new Series();
+        int[] next = new int[selected.size()];
+        double realizedBefore = 0;
+        double positionBefore = 0;
+        for (int s = 0; s < selected.size(); s++) {
+            Series series = selected.get(s);
+            next[s] = series.indexAtOrAfter(fromDay);
+            if (next[s] > 0) {
+                realizedBefore += series.realized[next[s] - 1];
+                positionBefore += series.position[next[s] - 1];
+            }
+        }
+        if (fromDay != Integer.MIN_VALUE && (realizedBefore != 0 || positionBefore != 0)) {
+            out.addRealized(fromDay, realizedBefore);
+            out.addPosition(fromDay, positionBefore);
+        }
+        while (true) {
+            // k-way merge on the next day any selected series changes
+            int day = Integer.MAX_VALUE;
+            for (int s = 0; s < selected.size(); s++) {
+                if (next[s] < selected.get(s).size) {
+                    day = Math.min(day, selected.get(s).days[next[s]]);
+                }
+            }
+            if (day == Integer.MAX_VALUE || day > toDay) {
+                return out;
+            }
+            double realized = 0;
+            double position = 0;
+            for (int s = 0; s < selected.size(); s++) {
+                Series series = selected.get(s);
+                if (next[s] < series.size && series.days[next[s]] == day) {
+                    next[s]++;
+                }
+                if (next[s] > 0) {
+                    realized += series.realized[next[s] - 1];
+                    position += series.position[next[s] - 1];
+                }
+            }
+            // out holds totals, so add the difference to its running values
+            double lastRealized = out.size > 0 ? out.realized[out.size - 1] : 0;
+            double lastPosition = out.size > 0 ? out.position[out.size - 1] : 0;
+            out.addRealized(day, realized - lastRealized);
+            out.addPosition(day, position - lastPosition);
+        }
+    }
+
+    /** Keeps the last point of each bucket, which is exact for a step series of running totals. */
+    private static EquityCurveDTO downsample(Series series, String portfolio, String symbol, String tradeType,
+            int maxPoints) {
+        int bucket = maxPoints <= 0 || series.size <= maxPoints ? 1 : (series.size + maxPoints - 1) / maxPoints;
+        int points = (series.size + bucket - 1) / bucket;
+        List<LocalDate> dates = new ArrayList<>(points);
+        double[] realized = new double[points];
+        double[] position = new double[points];
+        for (int p = 0; p < points; p++) {
+            // the first bucket keeps its first point so the series starts at the range start, unless it is
+            // the only point, which then has to be the final totals
+            int i = p == 0 && points > 1 ? 0 : Math.min(series.size - 1, (p + 1) * bucket - 1);
+            dates.add(LocalDate.ofEpochDay(series.days[i]));
+            realized[p] = series.realized[i];
+            position[p] = series.position[i];
+        }
+        // a position summed across instruments (shares of one symbol plus another) means nothing
+        boolean single = portfolio != null && symbol != null && tradeType != null;
+        return new EquityCurveDTO(portfolio, symbol, tradeType, dates, realized, single ? position : null);
+    }
+}
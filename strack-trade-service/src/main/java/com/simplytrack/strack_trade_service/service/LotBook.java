@@ -0,0 +1,128 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.LotRelief;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The open lots of one instrument while matching walks its trades in date order, and the order in which
+ * a closing trade relieves them. Lots leave the book lazily: a lot whose matchedQtyLeft reached zero (a
+ * full fill, or a specific-ID close that took it out of order) is dropped when it next comes to the front,
+ * so partial fills and out-of-order removal cost nothing extra. add() and next() are O(1) amortized for
+ * FIFO/LIFO and O(log n) for HIFO.
+ */
+interface LotBook {
+
+    void add(Trade lot);
+
+    /** @return the open lot {@code closing} should relieve next, or null if there is none */
+    Trade next(Trade closing);
+
+    /**
+     * @param shortSide the lots are SHORTs (closed by COVERs): HIFO then relieves the lowest short price
+     *                  first, the mirror of the highest cost for long lots
+     */
+    static LotBook create(LotRelief relief, boolean shortSide) {
+        return switch (relief) {
+            case FIFO -> new DequeBook(true);
+            case LIFO -> new DequeBook(false);
+            case HIFO -> new HeapBook(shortSide);
+            case SPECIFIC_ID -> new SpecificIdBook();
+        };
+    }
+
+    private static boolean open(Trade lot) {
+        BigDecimal left = lot.getMatchedQtyLeft();
+        return left != null && left.signum() > 0;
+    }
+
+    /** FIFO takes from the head (oldest), LIFO from the tail (newest). */
+    final class DequeBook implements LotBook {
+        private final ArrayDeque<Trade> lots = new ArrayDeque<>();
+        private final boolean oldestFirst;
+
+        DequeBook(boolean oldestFirst) {
+            this.oldestFirst = oldestFirst;
+        }
+
+        @Override
+        public void add(Trade lot) {
+            lots.addLast(lot);
+        }
+
+        @Override
+        public Trade next(Trade closing) {
+            while (!lots.isEmpty()) {
+                Trade lot = oldestFirst ? lots.peekFirst() : lots.peekLast();
+                if (open(lot)) {
+                    return lot;
+                }
+                if (oldestFirst) {
+                    lots.pollFirst();
+                } else {
+                    lots.pollLast();
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Highest cost first; equal prices go oldest first. */
+    final class HeapBook implements LotBook {
+        private final PriorityQueue<Trade> lots;
+
+        HeapBook(boolean shortSide) {
+            Comparator<Trade> byPrice = Comparator.comparing(Trade::getPrice);
+            lots = new PriorityQueue<>((shortSide ? byPrice : byPrice.reversed())
+                    .thenComparing(Trade::getTradeDate));
+        }
+
+        @Override
+        public void add(Trade lot) {
+            lots.add(lot);
+        }
+
+        @Override
+        public Trade next(Trade closing) {
+            while (!lots.isEmpty() && !open(lots.peek())) {
+                lots.poll();
+            }
+            return lots.peek();
+        }
+    }
+
+    /**
+     * The lot named by the closing trade's reliefLotId while it has quantity left, then FIFO, which is
+     * what a broker applies when no lot is designated.
+     */
+    final class SpecificIdBook implements LotBook {
+        private final DequeBook fifo = new DequeBook(true);
+        private final Map<Long, Trade> byId = new HashMap<>();
+
+        @Override
+        public void add(Trade lot) {
+            fifo.add(lot);
+            if (lot.getId() != null) {
+                byId.put(lot.getId(), lot);
+            }
+        }
+
+        @Override
+        public Trade next(Trade closing) {
+            Long designated = closing.getReliefLotId();
+            if (designated != null) {
+                Trade lot = byId.get(designated);
+                if (lot != null && open(lot)) {
+                    return lot;
+                }
+            }
+            return fifo.next(closing);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.ExpiringPositionDTO;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
+import com.simplytrack.strack_trade_service.types.ActionType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closes option positions that were still open when the contract expired: for each (user, portfolio,
+ * contract) with a net open quantity, a synthetic closing trade at price 0 (SELL for a long position,
+ * COVER for a short one) dated at the close on expiration day, plus the OptionMatch rows pairing it with
+ * the open lots. A later matchAll() rematches the synthetic trade like any other close.
+ *
+ * Positions are read in chunks of {@code trades.expiration.chunk-size} by key (user, portfolio, contract),
+ * one transaction per chunk, so an expiration Friday across all users runs in bounded memory and a failed
+ * chunk only costs that chunk. Progress: trade.expiration.positions{result}, trade.expiration.matches,
+ * trade.expiration.run (timer) and trade.expiration.run.processed (positions done in the current run).
+ */
+@Slf4j
+@Component
+@Lazy(false) // a lazy bean is never created under the fast-start profile, and its @Scheduled never registers
+@ConditionalOnProperty(name = "trades.expiration.enabled", havingValue = "true", matchIfMissing = true)
+public class OptionExpirationJob {
+
+    /** Options stop trading at 16:00 Eastern; the synthetic close is dated then. */
+    private static final LocalTime EXPIRATION_TIME = LocalTime.of(16, 0);
+
+    private final TradeRepository tradeRepository;
+    private final TradeMatchingService matcher;
+    private final TransactionTemplate transactionTemplate;
+    private final EquityCurveService equityCurves;
+    private final TradeSimulationService simulation;
+    private final int chunkSize;
+    private final int lookbackDays;
+    private final ZoneId zone;
+
+    private final Counter closed;
+    private final Counter failed;
+    private final Counter matches;
+    private final Timer runTimer;
+    private final AtomicLong processed = new AtomicLong();
+
+    public OptionExpirationJob(TradeRepository tradeRepository, TradeMatchingService matcher,
+            TransactionTemplate transactionTemplate, EquityCurveService equityCurves,
+            TradeSimulationService simulation, MeterRegistry meterRegistry,
+            @Value("${trades.expiration.chunk-size:500}") int chunkSize,
+            @Value("${trades.expiration.lookback-days:7}") int lookbackDays,
+            @Value("${trades.expiration.zone:America/New_York}") String zone) {
+        this.tradeRepository = tradeRepository;
+        this.matcher = matcher;
+        this.transactionTemplate = transactionTemplate;
+        this.equityCurves = equityCurves;
+        this.simulation = simulation;
+        this.chunkSize = chunkSize;
+        this.lookbackDays = lookbackDays;
+        this.zone = ZoneId.of(zone);
+
+        this.closed = Counter.builder("trade.expiration.positions")
+                .description("Expired option positions closed at zero")
+                .tag("result", "closed")
+                .register(meterRegistry);
+        this.failed = Counter.builder("trade.expiration.positions")
+                .description("Expired option positions closed at zero")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.matches = Counter.builder("trade.expiration.matches")
+                .description("OptionMatch rows created for expired positions")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("trade.expiration.run")
+                .description("Time to close all positions expiring in one run")
+                .register(meterRegistry);
+        Gauge.builder("trade.expiration.run.processed", processed, AtomicLong::get)
+                .description("Positions processed by the current (or last) expiration run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * After the close on trading days. Looks back {@code lookback-days} so a missed run (deploy,
+     * outage) is caught up; positions already closed have a zero net quantity and are not read again.
+     */
+    @Scheduled(cron = "${trades.expiration.cron:0 30 17 * * MON-FRI}", zone = "${trades.expiration.zone:America/New_York}")
+    public void closeRecentlyExpired() {
+        LocalDate today = LocalDate.now(zone);
+        closeExpired(today.minusDays(lookbackDays), today);
+    }
+
+    /**
+     * Closes every open position in contracts expiring between {@code from} and {@code to}, inclusive.
+     * @return the number of positions closed
+     */
+    public long closeExpired(LocalDate from, LocalDate to) {
+        processed.set(0);
+        long closedInRun = runTimer.record(() -> closeChunks(from, to));
+        log.info("Option expiration {}..{}: {} positions closed, {} processed", from, to, closedInRun,
+                processed.get());
+        return closedInRun;
+    }
+
+    private long closeChunks(LocalDate from, LocalDate to) {
+        long closedInRun = 0;
+        String userId = "";
+        String portfolio = "";
+        String usymbol = "";
+        while (true) {
+            List<ExpiringPositionDTO> chunk = tradeRepository.findOpenExpiringPositions(
+                    from.atStartOfDay(), to.atStartOfDay(), userId, portfolio, usymbol,
+                    PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                return closedInRun;
+            }
+            try {
+                Integer created = transactionTemplate.execute(status -> closeChunk(chunk));
+                matches.increment(created == null ? 0 : created);
+                closed.increment(chunk.size());
+                closedInRun += chunk.size();
+                chunk.forEach(position -> {
+                    equityCurves.invalidateFrom(position.userId(), position.expirationDate());
+                    simulation.evict(position.userId());
+                });
+            } catch (RuntimeException e) {
+                // skip past the chunk; the next run retries it
+                failed.increment(chunk.size());
+                log.warn("Failed to close {} expired positions starting at {}/{}/{}", chunk.size(),
+                        chunk.get(0).userId(), chunk.get(0).portfolioName(), chunk.get(0).usymbol(), e);
+            }
+            processed.addAndGet(chunk.size());
+
+            ExpiringPositionDTO last = chunk.get(chunk.size() - 1);
+            userId = last.userId();
+            portfolio = last.portfolioName();
+            usymbol = last.usymbol();
+            if (chunk.size() < chunkSize) {
+                return closedInRun;
+            }
+        }
+    }
+
+    /** @return the number of OptionMatch rows created */
+    private int closeChunk(List<ExpiringPositionDTO> chunk) {
+        // one fingerprint instance per chunk: a second instance running the same chunk hits the
+        // unique fingerprint and rolls back instead of closing the position twice
+        TradeFingerprint fingerprints = new TradeFingerprint();
+        int created = 0;
+        for (ExpiringPositionDTO position : chunk) {
+            created += closePosition(position, fingerprints);
+        }
+        return created;
+    }
+
+    private int closePosition(ExpiringPositionDTO position, TradeFingerprint fingerprints) {
+        boolean longPosition = position.netQuantity().signum() > 0;
+        BigDecimal quantity = position.netQuantity().abs();
+
+        OptionTrade closing = new OptionTrade();
+        closing.setUserId(position.userId());
+        closing.setPortfolioName(position.portfolioName());
+        closing.setUsymbol(position.usymbol());
+        OccSymbolParser.OptionContract contract = OccSymbolParser.parse(position.usymbol());
+        if (contract != null) {
+            OccSymbolParser.populate(closing, contract);
+            // keep the group's spelling so the position nets to zero
+            closing.setUsymbol(position.usymbol());
+        } else {
+            // stored before symbols were validated; keep what the open trades have
+            closing.setSymbol(position.symbol());
+            closing.setExpirationDate(position.expirationDate());
+            closing.setSharesPerContract(100);
+        }
+        closing.setAction(longPosition ? ActionType.SELL : ActionType.COVER);
+        closing.setQuantity(quantity);
+        closing.setMatchedQtyLeft(quantity);
+        closing.setPrice(BigDecimal.ZERO);
+        closing.setCommission(BigDecimal.ZERO);
+        closing.setFee(BigDecimal.ZERO);
+        closing.setNetAmount(BigDecimal.ZERO);
+        closing.setTradeDate(position.expirationDate().toLocalDate().atTime(EXPIRATION_TIME));
+        fingerprints.assign(closing);
+        tradeRepository.save(closing);
+
+        List<OptionTrade> openLots = tradeRepository.findOpenOptionLots(position.userId(),
+                position.portfolioName(), position.usymbol(),
+                List.of(longPosition ? ActionType.BUY : ActionType.SHORT));
+        return matcher.closeOptionPosition(openLots, closing).size();
+    }
+}
@@ -0,0 +1,130 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.TaxLotDTO;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Form 8949 style CSV of a tax year's matches: description, dates acquired and sold, proceeds, cost basis,
+ * the wash-sale adjustment (code W) and the gain, with the term (short/long) that decides Part I or II.
+ *
+ * Rows go from a streamed, date-sold ordered query straight to the output stream, so an export of hundreds
+ * of thousands of lines holds one row at a time, and the header is flushed before the first row is read.
+ */
+@Slf4j
+@Service
+public class TaxReportService {
+
+    private static final String HEADER = "Description,Date Acquired,Date Sold,Proceeds,Cost Basis,Code,"
+            + "Adjustment,Gain or Loss,Term,Type";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final MatchedTradeRepository matchRepository;
+    private final TransactionTemplate readOnly;
+
+    public TaxReportService(MatchedTradeRepository matchRepository, PlatformTransactionManager transactionManager) {
+        this.matchRepository = matchRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * @param portfolio null for all portfolios
+     * @return the number of rows written
+     * @throws UncheckedIOException if the client went away
+     */
+    public long writeForm8949(String userId, int year, String portfolio, OutputStream out) {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        Long rows = readOnly.execute(status -> {
+            long written = 0;
+            try (Stream<TaxLotDTO> lots = matchRepository.streamTaxLots(userId,
+                    LocalDateTime.of(year, 1, 1, 0, 0), LocalDateTime.of(year + 1, 1, 1, 0, 0), portfolio)) {
+                writer.write(HEADER);
+                writer.write("\r\n");
+                writer.flush();
+                Iterator<TaxLotDTO> it = lots.iterator();
+                while (it.hasNext()) {
+                    writeRow(writer, it.next());
+                    written++;
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return written;
+        });
+        log.info("Form 8949 export for {} ({}, {}): {} rows in {} ms", userId, year,
+                portfolio == null ? "all portfolios" : portfolio, rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private static void writeRow(Writer writer, TaxLotDTO lot) throws IOException {
+        BigDecimal gain = orZero(lot.stGainOrLoss()).add(orZero(lot.ltGainOrLoss()));
+        boolean washSale = lot.washSaleDisallowed() != null && lot.washSaleDisallowed().signum() != 0;
+        // same rule as the matcher's ST/LT split; a wash sale has already moved dateAcquired back
+        boolean longTerm = ChronoUnit.DAYS.between(lot.dateAcquired().toLocalDate(),
+                lot.dateSold().toLocalDate()) >= 365;
+
+        writer.write(csv(quantity(lot.quantity()) + " " + lot.symbol()));
+        writer.write(',');
+        writer.write(DATE.format(lot.dateAcquired()));
+        writer.write(',');
+        writer.write(DATE.format(lot.dateSold()));
+        writer.write(',');
+        writer.write(money(lot.proceeds()));
+        writer.write(',');
+        writer.write(money(lot.costBasis()));
+        writer.write(',');
+        writer.write(washSale ? "W" : "");
+        writer.write(',');
+        writer.write(washSale ? money(lot.washSaleDisallowed()) : "");
+        writer.write(',');
+        writer.write(money(gain));
+        writer.write(',');
+        writer.write(longTerm ? "LONG" : "SHORT");
+        writer.write(',');
+        writer.write(lot.tradeType());
+        writer.write("\r\n");
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    private static String money(BigDecimal value) {
+        return orZero(value).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String quantity(BigDecimal value) {
+        return orZero(value).stripTrailingZeros().toPlainString();
+    }
+
+    /** Quotes a field that holds a comma, quote or line break (RFC 4180). */
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,131 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes statement trades a chunk at a time: one SELECT finds which of the chunk's fingerprints are already
+ * stored, then one multi-row INSERT writes the rest, so rows already imported are skipped in two round-trips
+ * per chunk instead of being looked up one by one. Trades must have a fingerprint (TradeFingerprint). Runs
+ * in the caller's transaction.
+ *
+ * Both statements are plain SQL that PostgreSQL and H2 (the test and loadtest profiles) run alike, and the
+ * new rows are counted from the single INSERT's update count, which is exact, rather than from JDBC batch
+ * update counts (Statement.SUCCESS_NO_INFO for every row under reWriteBatchedInserts). Two imports of the
+ * same rows racing each other can still meet on the unique fingerprint index; the loser's transaction fails
+ * and a retry skips the rows the winner stored.
+ *
+ * The column list mirrors the Trade/OptionTrade mapping (single table, discriminator trade_type).
+ */
+@Component
+public class TradeBatchWriter {
+
+    private static final String INSERT = "INSERT INTO trades (trade_type, user_id, portfolio_name, symbol, "
+            + "quantity, price, trade_date, commission, action, net_amount, fee, matched_qty_left, "
+            + "option_type, expiration_date, strike_price, shares_per_contract, usymbol, fingerprint) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String STORED = "SELECT fingerprint FROM trades WHERE fingerprint IN (";
+    private static final int COLUMNS = 18;
+    /** Keeps one statement well under PostgreSQL's 65535 bind parameters, whatever the chunk size. */
+    static final int MAX_ROWS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TradeBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** @return how many of the trades were new; the others were already stored */
+    public int insertNew(List<Trade> trades) {
+        int inserted = 0;
+        for (int from = 0; from < trades.size(); from += MAX_ROWS) {
+            List<Trade> rows = newRows(trades.subList(from, Math.min(from + MAX_ROWS, trades.size())));
+            if (rows.isEmpty()) {
+                continue;
+            }
+            inserted += jdbcTemplate.update(insertSql(rows.size()), ps -> {
+                for (int i = 0; i < rows.size(); i++) {
+                    bind(ps, i * COLUMNS, rows.get(i));
+                }
+            });
+        }
+        return inserted;
+    }
+
+    /** The chunk without the fingerprints already stored, or repeated within it (first one wins). */
+    private List<Trade> newRows(List<Trade> chunk) {
+        Set<String> stored = new HashSet<>(jdbcTemplate.queryForList(storedSql(chunk.size()), String.class,
+                chunk.stream().map(Trade::getFingerprint).toArray()));
+        List<Trade> rows = new ArrayList<>(chunk.size() - stored.size());
+        for (Trade trade : chunk) {
+            if (stored.add(trade.getFingerprint())) {
+                rows.add(trade);
+            }
+        }
+        return rows;
+    }
+
+    static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+
+    static String storedSql(int fingerprints) {
+        StringBuilder sql = new StringBuilder(STORED.length() + fingerprints * 3);
+        sql.append(STORED);
+        for (int i = 0; i < fingerprints; i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static void bind(PreparedStatement ps, int offset, Trade trade) throws SQLException {
+        boolean option = trade instanceof OptionTrade;
+        ps.setString(offset + 1, option ? "OPTION" : "STOCK");
+        ps.setString(offset + 2, trade.getUserId());
+        ps.setString(offset + 3, trade.getPortfolioName());
+        ps.setString(offset + 4, trade.getSymbol());
+        ps.setBigDecimal(offset + 5, trade.getQuantity());
+        ps.setBigDecimal(offset + 6, trade.getPrice());
+        ps.setTimestamp(offset + 7, trade.getTradeDate() == null ? null : Timestamp.valueOf(trade.getTradeDate()));
+        ps.setBigDecimal(offset + 8, trade.getCommission());
+        ps.setString(offset + 9, trade.getAction() == null ? null : trade.getAction().name());
+        ps.setBigDecimal(offset + 10, trade.getNetAmount());
+        ps.setBigDecimal(offset + 11, trade.getFee());
+        ps.setBigDecimal(offset + 12, trade.getMatchedQtyLeft());
+        if (trade instanceof OptionTrade optionTrade) {
+            ps.setString(offset + 13, optionTrade.getOptionType());
+            ps.setTimestamp(offset + 14, optionTrade.getExpirationDate() == null ? null
+                    : Timestamp.valueOf(optionTrade.getExpirationDate()));
+            ps.setDouble(offset + 15, optionTrade.getStrikePrice());
+            ps.setDouble(offset + 16, optionTrade.getSharesPerContract());
+            ps.setString(offset + 17, optionTrade.getUsymbol());
+        } else {
+            ps.setNull(offset + 13, Types.VARCHAR);
+            ps.setNull(offset + 14, Types.TIMESTAMP);
+            ps.setNull(offset + 15, Types.DOUBLE);
+            ps.setNull(offset + 16, Types.DOUBLE);
+            ps.setNull(offset + 17, Types.VARCHAR);
+        }
+        ps.setString(offset + 18, trade.getFingerprint());
+    }
+}
@@ -0,0 +1,60 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Stable identity of a statement row: SHA-256 over user, portfolio, instrument, action, quantity, price,
+ * trade date and commission. The same row uploaded again gets the same fingerprint, which the unique
+ * trades.fingerprint column turns into a skip instead of a duplicate trade.
+ *
+ * Identical rows within one upload (two equal fills on the same day) are legitimate, so each repeat is
+ * numbered: the second copy hashes with occurrence 2, and so on. Use one instance per upload.
+ */
+public class TradeFingerprint {
+
+    private final Map<String, Integer> occurrences = new HashMap<>();
+    private final MessageDigest sha256;
+
+    public TradeFingerprint() {
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Computes the fingerprint of {@code trade} and sets it on the trade. */
+    public String assign(Trade trade) {
+        String content = String.join("|",
+                trade.getUserId(),
+                trade.getPortfolioName(),
+                trade instanceof OptionTrade option && option.getUsymbol() != null ? option.getUsymbol()
+                        : trade.getSymbol(),
+                String.valueOf(trade.getAction()),
+                plain(trade.getQuantity()),
+                plain(trade.getPrice()),
+                String.valueOf(trade.getTradeDate()),
+                plain(trade.getCommission()));
+        int occurrence = occurrences.merge(content, 1, Integer::sum);
+        if (occurrence > 1) {
+            content = content + "#" + occurrence;
+        }
+        String fingerprint = HexFormat.of().formatHex(sha256.digest(content.getBytes(StandardCharsets.UTF_8)));
+        trade.setFingerprint(fingerprint);
+        return fingerprint;
+    }
+
+    // 10, 10.0 and 10.00 are the same quantity
+    private static String plain(BigDecimal value) {
+        return value == null ? "" : value.stripTrailingZeros().toPlainString();
+    }
+}
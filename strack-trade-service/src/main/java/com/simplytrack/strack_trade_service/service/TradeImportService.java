@@ -0,0 +1,142 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.ImportResultDTO;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.service.imports.CsvRowReader;
+import com.simplytrack.strack_trade_service.service.imports.ImportRowMapper;
+import com.simplytrack.strack_trade_service.service.imports.RowHandler;
+import com.simplytrack.strack_trade_service.service.imports.XlsxRowReader;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Server-side statement import: stream-parses a CSV or XLSX file row by row, maps each row to a trade with
+ * ImportRowMapper and writes the trades in chunks with TradeBatchWriter. Rows already imported (same
+ * fingerprint) are skipped, so uploading an overlapping statement is safe. Rows that cannot be mapped are
+ * skipped and reported; everything runs in one transaction, so a failed upload leaves nothing behind.
+ */
+@Slf4j
+@Service
+public class TradeImportService {
+
+    // rejections returned to the client; the count covers all of them
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final TradeBatchWriter batchWriter;
+    private final CorporateActionService corporateActions;
+    private final int chunkSize;
+
+    public TradeImportService(TradeBatchWriter batchWriter, CorporateActionService corporateActions,
+            @Value("${trades.import.chunk-size:500}") int chunkSize) {
+        this.batchWriter = batchWriter;
+        this.corporateActions = corporateActions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param mapping trade field -> column header, or null to recognize the usual header names
+     * @throws IllegalArgumentException if the file has no header row or a required field has no column
+     */
+    @Transactional
+    public ImportResultDTO importTrades(String userId, String portfolioName, String filename, InputStream in,
+            Map<String, String> mapping) throws IOException {
+        ImportRun run = new ImportRun(userId, portfolioName, mapping);
+        if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".xlsx")) {
+            XlsxRowReader.read(in, run);
+        } else {
+            CsvRowReader.read(in, run);
+        }
+        if (run.mapper == null) {
+            throw new IllegalArgumentException("The file has no header row");
+        }
+        run.saveChunk();
+        log.debug("Imported {} trades for {} ({} duplicates, {} rows rejected)", run.imported, userId,
+                run.duplicates, run.rejected);
+        return new ImportResultDTO(run.imported, run.duplicates, run.rejected, run.errors);
+    }
+
+    /**
+     * Stores trades the client has already parsed (POST /api/trades/batch), with the same fingerprint
+     * de-duplication as a file import. Trades need user, portfolio and amounts set.
+     */
+    @Transactional
+    public ImportResultDTO saveBatch(List<Trade> trades) {
+        TradeFingerprint fingerprint = new TradeFingerprint();
+        trades.forEach(fingerprint::assign);
+        corporateActions.restate(trades);
+        int imported = 0;
+        for (int from = 0; from < trades.size(); from += chunkSize) {
+            imported += batchWriter.insertNew(trades.subList(from, Math.min(from + chunkSize, trades.size())));
+        }
+        return new ImportResultDTO(imported, trades.size() - imported, 0, List.of());
+    }
+
+    /** State of one import; receives rows from the reader. */
+    private final class ImportRun implements RowHandler {
+
+        private final String userId;
+        private final String portfolioName;
+        private final Map<String, String> mapping;
+        private final List<Trade> chunk = new ArrayList<>(chunkSize);
+        private final List<ImportResultDTO.RowError> errors = new ArrayList<>();
+        private final TradeFingerprint fingerprint = new TradeFingerprint();
+        private ImportRowMapper mapper;
+        private int imported;
+        private int duplicates;
+        private int rejected;
+
+        ImportRun(String userId, String portfolioName, Map<String, String> mapping) {
+            this.userId = userId;
+            this.portfolioName = portfolioName;
+            this.mapping = mapping;
+        }
+
+        @Override
+        public void row(int rowNumber, List<String> cells) {
+            if (mapper == null) {
+                // first non-blank row is the header
+                mapper = new ImportRowMapper(cells, mapping);
+                return;
+            }
+            Trade trade;
+            try {
+                trade = mapper.toTrade(cells);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new ImportResultDTO.RowError(rowNumber, e.getMessage()));
+                }
+                return;
+            }
+            trade.setUserId(userId);
+            trade.setPortfolioName(portfolioName);
+            fingerprint.assign(trade);
+            chunk.add(trade);
+            if (chunk.size() >= chunkSize) {
+                saveChunk();
+            }
+        }
+
+        void saveChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            corporateActions.restate(chunk);
+            int inserted = batchWriter.insertNew(chunk);
+            imported += inserted;
+            duplicates += chunk.size() - inserted;
+            chunk.clear();
+        }
+    }
+}
@@ -8,79 +8,216 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
 import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.PortfolioSettingsRepository;
 import com.simplytrack.strack_trade_service.repository.TradeRepository;
 import com.simplytrack.strack_trade_service.entity.MatchedTrade;
 import com.simplytrack.strack_trade_service.entity.OptionMatch;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.PortfolioSettings;
 import com.simplytrack.strack_trade_service.entity.StockMatch;
 import com.simplytrack.strack_trade_service.entity.Trade;
 import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.LotRelief;
 import com.simplytrack.strack_trade_service.types.TradeType;
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
 import org.springframework.security.core.Authentication;
 
 // import jakarta.transaction.Transactional;
 import org.springframework.transaction.annotation.Transactional;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class TradeMatchingService {
 
     private final TradeRepository tradeRepo;
     private final MatchedTradeRepository matchRepo;
+    private final PortfolioSettingsRepository settingsRepo;
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final Counter tradesConsidered;
+    private final Map<TradeType, TypeMetrics> typeMetrics = new EnumMap<>(TradeType.class);
+    // fraction of groups that get a debug line; a full book has thousands of groups
+    private final double groupDebugSampleRate;
+    private final boolean washSalesEnabled;
+
+    /** Meters for one (portfolio, symbol, trade type) group, tagged by trade type. */
+    private record TypeMetrics(Timer groupTimer, Counter groups, Counter matches, DistributionSummary groupSize) {
+    }
 
     public TradeMatchingService(TradeRepository tradeRepo,
-            MatchedTradeRepository matchRepo) {
+            MatchedTradeRepository matchRepo, PortfolioSettingsRepository settingsRepo,
+            MeterRegistry meterRegistry,
+            ObservationRegistry observationRegistry,
+            @Value("${matching.debug.group-sample-rate:0.01}") double groupDebugSampleRate,
+            @Value("${matching.wash-sales.enabled:true}") boolean washSalesEnabled) {
         this.tradeRepo = tradeRepo;
         this.matchRepo = matchRepo;
+        this.settingsRepo = settingsRepo;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.groupDebugSampleRate = groupDebugSampleRate;
+        this.washSalesEnabled = washSalesEnabled;
+
+        this.tradesConsidered = Counter.builder("trade.match.trades")
+                .description("Trades loaded for matching")
+                .register(meterRegistry);
+        for (TradeType type : TradeType.values()) {
+            String tag = type.name();
+            typeMetrics.put(type, new TypeMetrics(
+                    Timer.builder("trade.match.group")
+                            .description("Time to match one portfolio/symbol group")
+                            .tag("type", tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry),
+                    Counter.builder("trade.match.groups").tag("type", tag).register(meterRegistry),
+                    Counter.builder("trade.match.matches").tag("type", tag).register(meterRegistry),
+                    DistributionSummary.builder("trade.match.group.size")
+                            .description("Trades per portfolio/symbol group")
+                            .tag("type", tag)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)));
+        }
+    }
+
+    /**
+     * Runs one phase as a trade.match.phase{phase} observation: the trade.match.phase timer plus a
+     * span, so the JDBC spans of the phase nest under it. Phases: load -> group -> match (all groups)
+     * -> wash-sales -> persist, plus the two resets.
+     */
+    private <T> T inPhase(String phase, Supplier<T> work) {
+        return phaseObservation(phase).observe(work);
+    }
+
+    private void runPhase(String phase, Runnable work) {
+        phaseObservation(phase).observe(work);
+    }
+
+    private Observation phaseObservation(String phase) {
+        return Observation.createNotStarted("trade.match.phase", observationRegistry)
+                .contextualName("match " + phase)
+                .lowCardinalityKeyValue("phase", phase);
     }
 
     /**
-     * Finds all unmatched trades, groups them by portfolio & tradeType,
-     * matches buys↔sells (FIFO) and shorts↔covers, persists & returns matches.
+     * Finds the user's trades, groups them by portfolio & tradeType,
+     * matches buys↔sells and shorts↔covers with each portfolio's lot relief (FIFO by default), applies wash sales (WashSaleDetector),
+     * persists & returns matches.
      */
     @Transactional
-    public List<MatchedTrade> matchAll() {
-        // 1) load all trades
-        List<Trade> all = tradeRepo.findAll();
+    public List<MatchedTrade> matchAll(Authentication authentication) {
+        String userId = authentication.getName();
+        // 1) load the user's trades
+        long start = System.nanoTime();
+        List<Trade> all = inPhase("load", () -> tradeRepo.findByUserId(userId));
+        long loadNanos = System.nanoTime() - start;
+        tradesConsidered.increment(all.size());
+        Map<String, LotRelief> reliefByPortfolio = new HashMap<>();
+        for (PortfolioSettings settings : settingsRepo.findByUserId(userId)) {
+            reliefByPortfolio.put(settings.getPortfolioName(), settings.getLotRelief());
+        }
         // List<Trade> all = tradeRepo.findByMatchedQtyLeftGreaterThan(new
         // BigDecimal("0"));
-        // System.out.println("*********Matched traders input *********");
-        // all.forEach(System.out::println);
         // 2) group by portfolio + +Symbol + tradeType
-        Map<String, Map<String, Map<TradeType, List<Trade>>>> byPortfolioSymbolType = all.stream()
+        start = System.nanoTime();
+        Map<String, Map<String, Map<TradeType, List<Trade>>>> byPortfolioSymbolType = inPhase("group", () -> all.stream()
                 .collect(Collectors.groupingBy(
                         Trade::getPortfolioName, // Group by portfolio
                         Collectors.groupingBy(
-                                Trade::getSymbol, // Then by symbol
+                                TradeMatchingService::instrumentKey, // Then by symbol (options: by contract)
                                 Collectors.groupingBy(Trade::getTradeType) // Then by tradeType
-                        )));
+                        ))));
+        long groupNanos = System.nanoTime() - start;
 
+        // 3) match within each group
+        start = System.nanoTime();
+        List<MatchedTrade> results = inPhase("match", () -> matchGroups(byPortfolioSymbolType, reliefByPortfolio));
+        long matchNanos = System.nanoTime() - start;
+
+        if (washSalesEnabled) {
+            runPhase("wash-sales", () -> new WashSaleDetector().apply(all, results, TradeMatchingService::instrumentKey));
+        }
+
+        // save all matches; flushing here keeps the write cost inside the persist phase
+        start = System.nanoTime();
+        List<MatchedTrade> saved = inPhase("persist", () -> matchRepo.saveAllAndFlush(results));
+        long persistNanos = System.nanoTime() - start;
+
+        if (log.isDebugEnabled()) {
+            int groupCount = byPortfolioSymbolType.values().stream()
+                    .flatMap(symbolMap -> symbolMap.values().stream())
+                    .mapToInt(Map::size)
+                    .sum();
+            log.debug("match run trades={} groups={} matches={} loadMs={} groupMs={} matchMs={} persistMs={}",
+                    all.size(), groupCount, saved.size(),
+                    TimeUnit.NANOSECONDS.toMillis(loadNanos), TimeUnit.NANOSECONDS.toMillis(groupNanos),
+                    TimeUnit.NANOSECONDS.toMillis(matchNanos), TimeUnit.NANOSECONDS.toMillis(persistNanos));
+        }
+        return saved;
+    }
+
+    /**
+     * Stocks match per ticker; options per contract, keyed by the canonical OCC symbol so that spellings
+     * such as AAPL240119C150 and AAPL240119C00150000 meet in one group while other strikes and
+     * expirations of the same underlying do not.
+     */
+    static String instrumentKey(Trade trade) {
+        if (trade instanceof OptionTrade option && option.getUsymbol() != null) {
+            OccSymbolParser.OptionContract contract = OccSymbolParser.parse(option.getUsymbol());
+            if (contract != null) {
+                return contract.symbol();
+            }
+        }
+        return trade.getSymbol();
+    }
+
+    private List<MatchedTrade> matchGroups(Map<String, Map<String, Map<TradeType, List<Trade>>>> byPortfolioSymbolType,
+            Map<String, LotRelief> reliefByPortfolio) {
         List<MatchedTrade> results = new ArrayList<>();
 
         // Loop through portfolios
         for (var portfolioEntry : byPortfolioSymbolType.entrySet()) {
             String portfolio = portfolioEntry.getKey();
-            // System.out.println("Portfolio = " + portfolio);
             Map<String, Map<TradeType, List<Trade>>> symbolMap = portfolioEntry.getValue();
+            LotRelief relief = reliefByPortfolio.getOrDefault(portfolio, LotRelief.FIFO);
 
             // Loop through symbols in the portfolio
             for (var symbolEntry : symbolMap.entrySet()) {
                 String symbol = symbolEntry.getKey();
-                // System.out.println("symbol = " + symbol);
                 Map<TradeType, List<Trade>> typeMap = symbolEntry.getValue();
 
                 // Loop through trade types (STOCK/OPTION) in the symbol
                 for (var typeEntry : typeMap.entrySet()) {
                     TradeType tType = typeEntry.getKey();
                     List<Trade> trades = typeEntry.getValue();
-
-                    // Split into queues (BUY/SELL/SHORT/COVER) as before
-                    Queue<Trade> buys = new PriorityQueue<>(Comparator.comparing(Trade::getTradeDate));
-                    Queue<Trade> sells = new PriorityQueue<>(Comparator.comparing(Trade::getTradeDate));
-                    Queue<Trade> shorts = new PriorityQueue<>(Comparator.comparing(Trade::getTradeDate));
-                    Queue<Trade> covers = new PriorityQueue<>(Comparator.comparing(Trade::getTradeDate));
+                    TypeMetrics metrics = typeMetrics.get(tType);
+                    metrics.groups().increment();
+                    metrics.groupSize().record(trades.size());
+                    Timer.Sample groupSample = Timer.start(meterRegistry);
+                    int matchedBefore = results.size();
+
+                    // Split by action (BUY/SELL/SHORT/COVER)
+                    List<Trade> buys = new ArrayList<>();
+                    List<Trade> sells = new ArrayList<>();
+                    List<Trade> shorts = new ArrayList<>();
+                    List<Trade> covers = new ArrayList<>();
 
                     for (Trade t : trades) {
                         switch (t.getAction()) {
@@ -100,94 +237,154 @@ public class TradeMatchingService {
                     }
 
                     // Match BUY↔SELL and SHORT↔COVER for the same symbol
-                    results.addAll(matchQueues(buys, sells, tType));
-                    results.addAll(matchQueues(shorts, covers, tType));
+                    results.addAll(relieveLots(buys, sells, tType, relief));
+                    results.addAll(relieveLots(shorts, covers, tType, relief));
+
+                    long groupNanosTaken = groupSample.stop(metrics.groupTimer());
+                    int groupMatches = results.size() - matchedBefore;
+                    metrics.matches().increment(groupMatches);
+                    if (sampleGroupDebug()) {
+                        log.debug("match group portfolio={} symbol={} type={} trades={} matches={} micros={}",
+                                portfolio, symbol, tType, trades.size(), groupMatches,
+                                TimeUnit.NANOSECONDS.toMicros(groupNanosTaken));
+                    }
                 }
             }
         }
-        // System.out.println("*********Matched traders *********");
-        results.forEach(System.out::println);
-        // save all matches
-        return matchRepo.saveAll(results);
+        return results;
     }
 
-    private List<MatchedTrade> matchQueues(Queue<Trade> open, Queue<Trade> counter, TradeType type) {
-        List<MatchedTrade> matches = new ArrayList<>();
-
-        while (!open.isEmpty() && !counter.isEmpty()) {
-            Trade tOpen = open.peek();
-            Trade tCounter = counter.peek();
-            BigDecimal qtyToMatch = tOpen.getMatchedQtyLeft().min(tCounter.getMatchedQtyLeft());
-            // Math.min(tOpen.getQuantity(), tCounter.getQuantity());
-
-            MatchedTrade mt = (type == TradeType.STOCK)
-                    ? new StockMatch()
-                    : new OptionMatch();
-
-            mt.setBuyTrade(
-                    tOpen.getAction() == ActionType.BUY || tOpen.getAction() == ActionType.COVER ? tOpen : tCounter);
-            mt.setSellTrade(
-                    tOpen.getAction() == ActionType.SELL || tOpen.getAction() == ActionType.SHORT ? tOpen : tCounter);
-            mt.setMatchedQuantity(qtyToMatch);
-            mt.setMatchedPrice(tCounter.getPrice());
-            mt.setMatchTimestamp(LocalDateTime.now());
-
-            // set data acquired and data sold
-            mt.setDateAcquired(tOpen.getTradeDate());
-            mt.setDateSold(tCounter.getTradeDate());
-
-            // Calculate Proceeds
-
-            // Calculate commission portions (proportional to matched quantity)
-            BigDecimal buyCommissionPortion = calculateCommissionPortion(tOpen, qtyToMatch);
-            BigDecimal sellCommissionPortion = calculateCommissionPortion(tCounter, qtyToMatch);
-
-            // Proceeds = (sell price * qty) - sell commission portion
-            BigDecimal proceeds = tCounter.getPrice()
-                    .multiply(qtyToMatch)
-                    .subtract(sellCommissionPortion);
-
-            // Cost basis = (buy price * qty) - buy commission portion
-            BigDecimal costBasis = tOpen.getPrice()
-                    .multiply(qtyToMatch)
-                    .subtract(buyCommissionPortion);
-
-            mt.setProceeds(proceeds);
-            mt.setCostBasis(costBasis);
-
-            // Calculate holding period days
-            LocalDate acquiredDate = mt.getDateAcquired().toLocalDate();
-            LocalDate soldDate = mt.getDateSold().toLocalDate();
-            long daysHeld = ChronoUnit.DAYS.between(acquiredDate, soldDate);
-
-            // Determine ST/LT gains
-            BigDecimal gainLoss = proceeds.subtract(costBasis);
-
-            if (daysHeld < 365) {
-                mt.setStGainOrLoss(gainLoss);
-                mt.setLtGainOrLoss(BigDecimal.ZERO);
-            } else {
-                mt.setStGainOrLoss(BigDecimal.ZERO);
-                mt.setLtGainOrLoss(gainLoss);
-            }
+    /**
+     * Matches {@code closing} against the open lots of one option contract (FIFO) and persists the
+     * matches; the same rules as matchAll(), for one contract. Used by OptionExpirationJob.
+     */
+    @Transactional
+    public List<MatchedTrade> closeOptionPosition(List<? extends Trade> openLots, Trade closing) {
+        List<Trade> closings = new ArrayList<>();
+        closings.add(closing);
+        return matchRepo.saveAll(relieveLots(new ArrayList<>(openLots), closings, TradeType.OPTION, LotRelief.FIFO));
+    }
 
-            matches.add(mt);
+    private boolean sampleGroupDebug() {
+        return log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < groupDebugSampleRate;
+    }
 
-            // decrement quantities and pop if fully matched
-            adjustTradeAfterMatch(tOpen, qtyToMatch);
-            adjustTradeAfterMatch(tCounter, qtyToMatch);
+    private static final Comparator<Trade> BY_TRADE_DATE = Comparator.comparing(Trade::getTradeDate);
 
-            // if either is now fully matched, pop it off the queue
-            if (tOpen.getMatchedQtyLeft().compareTo(BigDecimal.ZERO) == 0)
-                open.remove();
-            if (tCounter.getMatchedQtyLeft().compareTo(BigDecimal.ZERO) == 0)
-                counter.remove();
+    /**
+     * Walks one instrument's opening and closing trades in date order: each opening trade goes into a
+     * LotBook, and each closing trade relieves the lots that are open at that point in the order the
+     * portfolio's lot relief picks. Closings with no open lot (the statement starts after the buy) wait,
+     * and are matched oldest first against the next lots opened.
+     *
+     * Only touches the trades passed in (matchedQtyLeft), so TradeSimulationService runs it on copies.
+     */
+    List<MatchedTrade> relieveLots(List<Trade> openings, List<Trade> closings, TradeType type,
+            LotRelief relief) {
+        List<MatchedTrade> matches = new ArrayList<>();
+        if (openings.isEmpty() || closings.isEmpty()) {
+            return matches;
+        }
+        openings.sort(BY_TRADE_DATE);
+        closings.sort(BY_TRADE_DATE);
+        LotBook lots = LotBook.create(relief, openings.get(0).getAction() == ActionType.SHORT);
+        Deque<Trade> waiting = new ArrayDeque<>();
+
+        int nextOpening = 0;
+        for (Trade closing : closings) {
+            // lots opened up to and including the closing's timestamp can be relieved by it
+            while (nextOpening < openings.size()
+                    && !openings.get(nextOpening).getTradeDate().isAfter(closing.getTradeDate())) {
+                open(openings.get(nextOpening++), lots, waiting, type, matches);
+            }
+            while (closing.getMatchedQtyLeft().signum() > 0) {
+                Trade lot = lots.next(closing);
+                if (lot == null) {
+                    waiting.addLast(closing);
+                    break;
+                }
+                matches.add(match(lot, closing, type));
+            }
+        }
+        while (nextOpening < openings.size() && !waiting.isEmpty()) {
+            open(openings.get(nextOpening++), lots, waiting, type, matches);
         }
-        // System.out.println("*********Each Matched traders *********");
-        matches.forEach(System.out::println);
         return matches;
     }
 
+    /** Adds a lot to the book after it has filled any closings still waiting for a lot. */
+    private void open(Trade lot, LotBook lots, Deque<Trade> waiting, TradeType type, List<MatchedTrade> matches) {
+        while (!waiting.isEmpty() && lot.getMatchedQtyLeft().signum() > 0) {
+            Trade closing = waiting.peekFirst();
+            matches.add(match(lot, closing, type));
+            if (closing.getMatchedQtyLeft().signum() <= 0) {
+                waiting.pollFirst();
+            }
+        }
+        lots.add(lot);
+    }
+
+    /** Matches as much of {@code tOpen} against {@code tCounter} as both have left. */
+    private MatchedTrade match(Trade tOpen, Trade tCounter, TradeType type) {
+        BigDecimal qtyToMatch = tOpen.getMatchedQtyLeft().min(tCounter.getMatchedQtyLeft());
+
+        MatchedTrade mt = (type == TradeType.STOCK)
+                ? new StockMatch()
+                : new OptionMatch();
+
+        mt.setBuyTrade(
+                tOpen.getAction() == ActionType.BUY || tOpen.getAction() == ActionType.COVER ? tOpen : tCounter);
+        mt.setSellTrade(
+                tOpen.getAction() == ActionType.SELL || tOpen.getAction() == ActionType.SHORT ? tOpen : tCounter);
+        mt.setMatchedQuantity(qtyToMatch);
+        mt.setMatchedPrice(tCounter.getPrice());
+        mt.setMatchTimestamp(LocalDateTime.now());
+
+        // set data acquired and data sold
+        mt.setDateAcquired(tOpen.getTradeDate());
+        mt.setDateSold(tCounter.getTradeDate());
+
+        // Calculate Proceeds
+
+        // Calculate commission portions (proportional to matched quantity)
+        BigDecimal buyCommissionPortion = calculateCommissionPortion(tOpen, qtyToMatch);
+        BigDecimal sellCommissionPortion = calculateCommissionPortion(tCounter, qtyToMatch);
+
+        // Proceeds = (sell price * qty) - sell commission portion
+        BigDecimal proceeds = tCounter.getPrice()
+                .multiply(qtyToMatch)
+                .subtract(sellCommissionPortion);
+
+        // Cost basis = (buy price * qty) - buy commission portion
+        BigDecimal costBasis = tOpen.getPrice()
+                .multiply(qtyToMatch)
+                .subtract(buyCommissionPortion);
+
+        mt.setProceeds(proceeds);
+        mt.setCostBasis(costBasis);
+
+        // Calculate holding period days
+        LocalDate acquiredDate = mt.getDateAcquired().toLocalDate();
+        LocalDate soldDate = mt.getDateSold().toLocalDate();
+        long daysHeld = ChronoUnit.DAYS.between(acquiredDate, soldDate);
+
+        // Determine ST/LT gains
+        BigDecimal gainLoss = proceeds.subtract(costBasis);
+
+        if (daysHeld < 365) {
+            mt.setStGainOrLoss(gainLoss);
+            mt.setLtGainOrLoss(BigDecimal.ZERO);
+        } else {
+            mt.setStGainOrLoss(BigDecimal.ZERO);
+            mt.setLtGainOrLoss(gainLoss);
+        }
+
+        // decrement quantities; the lot book drops lots with nothing left
+        adjustTradeAfterMatch(tOpen, qtyToMatch);
+        adjustTradeAfterMatch(tCounter, qtyToMatch);
+        return mt;
+    }
+
     // Helper method to calculate commission portion for a trade
     private BigDecimal calculateCommissionPortion(Trade trade, BigDecimal matchedQty) {
         if (trade.getQuantity().compareTo(BigDecimal.ZERO) == 0) {
@@ -203,27 +400,24 @@ public class TradeMatchingService {
         BigDecimal remaining = t.getMatchedQtyLeft().subtract(matched);
         t.setMatchedQtyLeft(new BigDecimal("0").max(remaining));
         // tOpen.getQuantity().min(tCounter.getQuantity());
-        // persist the updated trade so later matches only see the new matchedQtyLeft
-        // System.out.println("*********tradeRepo start *********");
-        tradeRepo.save(t);
-        // System.out.println("*********tradeRepo end *********");
+        // no save: matchAll() and closeOptionPosition() work on managed trades inside their transaction,
+        // so dirty checking writes the new matchedQtyLeft, and simulations pass copies that must not be written
     }
 
     @Transactional // Make sure this is Spring's annotation
     public void resetMatchTrades(Authentication authentication) {
         String userId = authentication.getName();
-        matchRepo.deleteStockMatchesByUser(userId);
-        matchRepo.deleteOptionMatchesByUser(userId);
+        runPhase("reset-matches", () -> {
+            matchRepo.deleteStockMatchesByUser(userId);
+            matchRepo.deleteOptionMatchesByUser(userId);
+        });
     }
 
-    //@Transactional // Make sure this is Spring's annotation
+    @Transactional // Make sure this is Spring's annotation
     public void resetMatchQuantityLeft(Authentication authentication) {
         String userId = authentication.getName();
-        List<Trade> trades = tradeRepo.findByUserId(userId);
-        trades.forEach(trade -> {
-            trade.setMatchedQtyLeft(trade.getQuantity());
-            tradeRepo.save(trade);
-        });
+        // one set-based UPDATE instead of loading and saving every trade
+        runPhase("reset-quantities", () -> tradeRepo.resetMatchedQtyLeft(userId));
     }
 }
 // private void adjustQueue(Queue<Trade> q, BigDecimal matched) {
@@ -0,0 +1,234 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.MatchedTradeDTO;
+import com.simplytrack.strack_trade_service.DTO.SimulationResultDTO;
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.PortfolioSettings;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.repository.PortfolioSettingsRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.LotRelief;
+import com.simplytrack.strack_trade_service.types.TradeType;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What-if matching: runs the matcher's lot relief over copies of the user's open lots plus hypothetical
+ * trades ("sell 100 AAPL at 190 today") and returns the matches it would make, without writing anything
+ * and without the reset-and-rematch of POST /api/trades/match.
+ *
+ * The open lots are loaded once per user into an immutable snapshot (plain records, grouped by portfolio
+ * and instrument) and reused until a trade write evicts it or {@code trades.simulation.cache-ttl} passes,
+ * so a UI slider firing requests only copies the lots of the instruments it touches. The snapshot is as
+ * of the last match run. Wash sales are not applied to simulated matches.
+ */
+@Slf4j
+@Service
+public class TradeSimulationService {
+
+    /** Scalar copy of an unmatched trade; never handed out, so the snapshot cannot change under readers. */
+    private record Lot(Long id, TradeType type, ActionType action, String symbol, String usymbol,
+            LocalDateTime tradeDate, BigDecimal quantity, BigDecimal matchedQtyLeft, BigDecimal price,
+            BigDecimal commission) {
+
+        static Lot of(Trade trade) {
+            return new Lot(trade.getId(), typeOf(trade), trade.getAction(), trade.getSymbol(),
+                    trade instanceof OptionTrade option ? option.getUsymbol() : null, trade.getTradeDate(),
+                    trade.getQuantity(), trade.getMatchedQtyLeft(), trade.getPrice(),
+                    trade.getCommission() == null ? BigDecimal.ZERO : trade.getCommission());
+        }
+
+        /** A fresh, detached trade the matcher may consume. */
+        Trade copy(String userId, String portfolioName) {
+            Trade trade;
+            if (type == TradeType.OPTION) {
+                OptionTrade option = new OptionTrade();
+                option.setUsymbol(usymbol);
+                trade = option;
+            } else {
+                trade = new StockTrade();
+            }
+            trade.setId(id);
+            trade.setTradeType(type);
+            trade.setUserId(userId);
+            trade.setPortfolioName(portfolioName);
+            trade.setSymbol(symbol);
+            trade.setAction(action);
+            trade.setTradeDate(tradeDate);
+            trade.setQuantity(quantity);
+            trade.setMatchedQtyLeft(matchedQtyLeft);
+            trade.setPrice(price);
+            trade.setCommission(commission);
+            return trade;
+        }
+    }
+
+    private record Snapshot(long loadedAtNanos, Map<String, List<Lot>> lotsByGroup,
+            Map<String, LotRelief> reliefByPortfolio) {
+    }
+
+    private final TradeRepository tradeRepository;
+    private final PortfolioSettingsRepository settingsRepository;
+    private final TradeMatchingService matcher;
+    private final long ttlNanos;
+    private final int maxUsers;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    public TradeSimulationService(TradeRepository tradeRepository, PortfolioSettingsRepository settingsRepository,
+            TradeMatchingService matcher,
+            @Value("${trades.simulation.cache-ttl:5m}") Duration ttl,
+            @Value("${trades.simulation.cache-max-users:1000}") int maxUsers) {
+        this.tradeRepository = tradeRepository;
+        this.settingsRepository = settingsRepository;
+        this.matcher = matcher;
+        this.ttlNanos = ttl.toNanos();
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * @param hypothetical trades as for POST /api/trades (portfolioName, symbol, action, quantity, price;
+     *                     tradeDate defaults to now); they are modified
+     * @throws IllegalArgumentException if a trade is incomplete or has an invalid option symbol
+     */
+    public SimulationResultDTO simulate(String userId, List<Trade> hypothetical) {
+        Snapshot snapshot = snapshot(userId);
+
+        Map<String, List<Trade>> byGroup = new LinkedHashMap<>();
+        for (int i = 0; i < hypothetical.size(); i++) {
+            Trade trade = hypothetical.get(i);
+            prepare(trade, userId, i + 1);
+            byGroup.computeIfAbsent(groupKey(trade), k -> new ArrayList<>()).add(trade);
+        }
+
+        List<MatchedTrade> matches = new ArrayList<>();
+        for (Map.Entry<String, List<Trade>> group : byGroup.entrySet()) {
+            List<Trade> trades = group.getValue();
+            String portfolio = trades.get(0).getPortfolioName();
+            for (Lot lot : snapshot.lotsByGroup().getOrDefault(group.getKey(), List.of())) {
+                trades.add(lot.copy(userId, portfolio));
+            }
+            matches.addAll(relieve(trades, typeOf(trades.get(0)),
+                    snapshot.reliefByPortfolio().getOrDefault(portfolio, LotRelief.FIFO)));
+        }
+
+        BigDecimal st = BigDecimal.ZERO;
+        BigDecimal lt = BigDecimal.ZERO;
+        List<MatchedTradeDTO> dtos = new ArrayList<>(matches.size());
+        for (MatchedTrade match : matches) {
+            st = st.add(match.getStGainOrLoss());
+            lt = lt.add(match.getLtGainOrLoss());
+            dtos.add(MatchedTradeDTO.from(match));
+        }
+        BigDecimal unmatched = BigDecimal.ZERO;
+        for (Trade trade : hypothetical) {
+            if (trade.getAction() == ActionType.SELL || trade.getAction() == ActionType.COVER) {
+                unmatched = unmatched.add(trade.getMatchedQtyLeft());
+            }
+        }
+        return new SimulationResultDTO(dtos, st, lt, unmatched);
+    }
+
+    /** Drops the user's cached lots; call after anything that changes their trades or matches. */
+    public void evict(String userId) {
+        snapshots.remove(userId);
+    }
+
+    /** Drops every cached snapshot, e.g. after a corporate action restates trades across users. */
+    public void evictAll() {
+        snapshots.clear();
+    }
+
+    private List<MatchedTrade> relieve(List<Trade> trades, TradeType type, LotRelief relief) {
+        List<Trade> buys = new ArrayList<>();
+        List<Trade> sells = new ArrayList<>();
+        List<Trade> shorts = new ArrayList<>();
+        List<Trade> covers = new ArrayList<>();
+        for (Trade trade : trades) {
+            switch (trade.getAction()) {
+                case BUY -> buys.add(trade);
+                case SELL -> sells.add(trade);
+                case SHORT -> shorts.add(trade);
+                case COVER -> covers.add(trade);
+            }
+        }
+        List<MatchedTrade> matches = new ArrayList<>(matcher.relieveLots(buys, sells, type, relief));
+        matches.addAll(matcher.relieveLots(shorts, covers, type, relief));
+        return matches;
+    }
+
+    private Snapshot snapshot(String userId) {
+        Snapshot cached = snapshots.get(userId);
+        if (cached != null && System.nanoTime() - cached.loadedAtNanos() < ttlNanos) {
+            return cached;
+        }
+        Map<String, List<Lot>> lotsByGroup = new HashMap<>();
+        for (Trade trade : tradeRepository.findUnmatchedByUserId(userId)) {
+            lotsByGroup.computeIfAbsent(groupKey(trade), k -> new ArrayList<>()).add(Lot.of(trade));
+        }
+        lotsByGroup.replaceAll((group, lots) -> List.copyOf(lots));
+        Map<String, LotRelief> relief = new HashMap<>();
+        for (PortfolioSettings settings : settingsRepository.findByUserId(userId)) {
+            relief.put(settings.getPortfolioName(), settings.getLotRelief());
+        }
+        Snapshot snapshot = new Snapshot(System.nanoTime(), Map.copyOf(lotsByGroup), Map.copyOf(relief));
+        if (snapshots.size() >= maxUsers) {
+            // crude bound; snapshots are cheap to rebuild
+            snapshots.clear();
+        }
+        snapshots.put(userId, snapshot);
+        log.debug("Simulation snapshot for {}: {} instruments", userId, lotsByGroup.size());
+        return snapshot;
+    }
+
+    private static void prepare(Trade trade, String userId, int number) {
+        if (trade.getPortfolioName() == null || trade.getAction() == null || trade.getQuantity() == null
+                || trade.getQuantity().signum() <= 0 || trade.getPrice() == null) {
+            throw new IllegalArgumentException(
+                    "Trade " + number + ": portfolioName, action, a positive quantity and price are required");
+        }
+        if (trade instanceof OptionTrade option) {
+            try {
+                OccSymbolParser.populate(option);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Trade " + number + ": " + e.getMessage());
+            }
+        } else if (trade.getSymbol() == null || trade.getSymbol().isBlank()) {
+            throw new IllegalArgumentException("Trade " + number + ": symbol is required");
+        }
+        trade.setId(null);
+        trade.setUserId(userId);
+        trade.setTradeType(typeOf(trade));
+        trade.setMatchedQtyLeft(trade.getQuantity());
+        if (trade.getCommission() == null) {
+            trade.setCommission(BigDecimal.ZERO);
+        }
+        if (trade.getTradeDate() == null) {
+            trade.setTradeDate(LocalDateTime.now());
+        }
+    }
+
+    private static String groupKey(Trade trade) {
+        return trade.getPortfolioName() + "|" + typeOf(trade) + "|" + TradeMatchingService.instrumentKey(trade);
+    }
+
+    private static TradeType typeOf(Trade trade) {
+        return trade instanceof OptionTrade ? TradeType.OPTION : TradeType.STOCK;
+    }
+}
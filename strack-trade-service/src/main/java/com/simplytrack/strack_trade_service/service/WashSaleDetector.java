@@ -0,0 +1,260 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Wash-sale pass over one user's matches (IRS Pub. 550): a long position sold at a loss with a purchase of
+ * the same instrument within 30 days before or after the sale has the loss disallowed, share for share.
+ * The disallowed loss goes on the loss match (washSaleDisallowed, and the reported gain is restated to
+ * exclude it); the replacement shares carry it in their basis, plus the loss lot's holding period. When the
+ * replacement shares are sold later, their match's cost basis and acquisition date reflect that; while
+ * they are open, the adjustment is kept on the trade (basisAdjustment). Only shares still held at the loss
+ * sale count as replacements, so every disallowed loss lands on a sale that comes after it or on an open lot.
+ *
+ * Purchases are indexed per instrument (stock ticker or option contract, across portfolios) in a sorted
+ * array of trade dates, with a "next purchase with shares left" union-find over it. Each loss finds its
+ * window by binary search and each purchase is skipped for good once its shares are used up, so a pass
+ * is O(n log n) for sorting plus near-linear work, never a scan of sales against purchases.
+ *
+ * Not covered: short sales, and options or other "substantially identical" securities on the same
+ * underlying as a stock (only the same ticker or contract counts as a replacement).
+ */
+class WashSaleDetector {
+
+    static final int WINDOW_DAYS = 30;
+
+    private static final int PER_SHARE_SCALE = 10;
+
+    /** Replacement shares carrying a disallowed loss, consumed by the lot's later sales in order. */
+    private record Tranche(BigDecimal shares, BigDecimal perShare, long holdingDays) {
+    }
+
+    /** Purchases of one instrument, sorted by trade date. */
+    private static final class PurchaseIndex {
+        final Trade[] lots;
+        final long[] epochDays;
+        /** shares not sold yet (as of the sale being judged) that carry no disallowed loss */
+        final BigDecimal[] sharesLeft;
+        final int[] next;
+
+        PurchaseIndex(List<Trade> purchases) {
+            lots = purchases.toArray(new Trade[0]);
+            Arrays.sort(lots, Comparator.comparing(Trade::getTradeDate));
+            epochDays = new long[lots.length];
+            sharesLeft = new BigDecimal[lots.length];
+            next = new int[lots.length + 1];
+            for (int i = 0; i < lots.length; i++) {
+                epochDays[i] = lots[i].getTradeDate().toLocalDate().toEpochDay();
+                sharesLeft[i] = lots[i].getQuantity();
+                next[i] = i;
+            }
+            next[lots.length] = lots.length;
+        }
+
+        /** First index >= {@code day}. */
+        int lowerBound(long day) {
+            int lo = 0;
+            int hi = lots.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (epochDays[mid] < day) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** First index >= {@code i} with replacement shares left (path-halving union-find). */
+        int available(int i) {
+            while (next[i] != i) {
+                next[i] = next[next[i]];
+                i = next[i];
+            }
+            return i;
+        }
+
+        void useUp(int i) {
+            next[i] = i + 1;
+        }
+    }
+
+    private final Map<Trade, PurchaseIndex> indexByLot = new IdentityHashMap<>();
+    private final Map<Trade, Integer> positionByLot = new IdentityHashMap<>();
+    private final Map<Trade, Deque<Tranche>> tranches = new IdentityHashMap<>();
+
+    /**
+     * Restates {@code matches} (not yet persisted) for wash sales and sets basisAdjustment on purchases
+     * whose replacement shares are still open.
+     *
+     * @param trades all of the user's trades the matches were built from
+     * @param instrumentKey groups trades of the same instrument
+     */
+    void apply(List<Trade> trades, List<MatchedTrade> matches, Function<Trade, String> instrumentKey) {
+        Map<String, List<Trade>> purchases = new HashMap<>();
+        for (Trade trade : trades) {
+            if (trade.getAction() == ActionType.BUY && trade.getTradeDate() != null) {
+                String key = trade.getTradeType() + ":" + instrumentKey.apply(trade);
+                purchases.computeIfAbsent(key, k -> new ArrayList<>()).add(trade);
+            }
+        }
+        for (List<Trade> lots : purchases.values()) {
+            PurchaseIndex index = new PurchaseIndex(lots);
+            for (int i = 0; i < index.lots.length; i++) {
+                indexByLot.put(index.lots[i], index);
+                positionByLot.put(index.lots[i], i);
+            }
+        }
+
+        List<MatchedTrade> longSales = new ArrayList<>();
+        for (MatchedTrade match : matches) {
+            if (match.getBuyTrade().getAction() == ActionType.BUY && indexByLot.containsKey(match.getBuyTrade())
+                    && match.getDateAcquired() != null && match.getDateSold() != null) {
+                longSales.add(match);
+            }
+        }
+        // in sale order, so a replacement lot carries its adjustment before its own sale is judged
+        longSales.sort(Comparator.comparing(MatchedTrade::getDateSold));
+        for (MatchedTrade match : longSales) {
+            BigDecimal carried = carryAdjustment(match);
+            sellShares(match.getBuyTrade(), match.getMatchedQuantity().subtract(carried));
+            disallowLoss(match);
+            classify(match);
+        }
+
+        tranches.forEach(WashSaleDetector::keepOpenAdjustment);
+    }
+
+    /**
+     * Adds the disallowed losses carried by the sold shares to the match's basis and holding period.
+     *
+     * @return how many of the sold shares carried one
+     */
+    private BigDecimal carryAdjustment(MatchedTrade match) {
+        Deque<Tranche> carried = tranches.get(match.getBuyTrade());
+        if (carried == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal toCover = match.getMatchedQuantity();
+        BigDecimal basis = BigDecimal.ZERO;
+        long holdingDays = Long.MAX_VALUE;
+        while (toCover.signum() > 0 && !carried.isEmpty()) {
+            Tranche tranche = carried.pollFirst();
+            BigDecimal shares = tranche.shares().min(toCover);
+            basis = basis.add(tranche.perShare().multiply(shares));
+            // a sale spanning tranches keeps the shortest carried holding period
+            holdingDays = Math.min(holdingDays, tranche.holdingDays());
+            toCover = toCover.subtract(shares);
+            if (shares.compareTo(tranche.shares()) < 0) {
+                carried.addFirst(new Tranche(tranche.shares().subtract(shares), tranche.perShare(),
+                        tranche.holdingDays()));
+            }
+        }
+        if (basis.signum() > 0) {
+            match.setCostBasis(match.getCostBasis().add(basis).setScale(2, RoundingMode.HALF_UP));
+            match.setDateAcquired(match.getDateAcquired().minusDays(holdingDays));
+        }
+        return match.getMatchedQuantity().subtract(toCover);
+    }
+
+    /** Sold shares that carried no disallowed loss can no longer replace a later loss sale. */
+    private void sellShares(Trade lot, BigDecimal shares) {
+        PurchaseIndex index = indexByLot.get(lot);
+        int i = positionByLot.get(lot);
+        if (index.sharesLeft[i].signum() <= 0 || shares.signum() <= 0) {
+            return;
+        }
+        index.sharesLeft[i] = index.sharesLeft[i].subtract(shares).max(BigDecimal.ZERO);
+        if (index.sharesLeft[i].signum() <= 0) {
+            index.useUp(i);
+        }
+    }
+
+    private void disallowLoss(MatchedTrade match) {
+        BigDecimal loss = match.getCostBasis().subtract(match.getProceeds());
+        if (loss.signum() <= 0) {
+            return;
+        }
+        Trade soldLot = match.getBuyTrade();
+        PurchaseIndex index = indexByLot.get(soldLot);
+        int soldPosition = positionByLot.get(soldLot);
+        LocalDate saleDate = match.getDateSold().toLocalDate();
+        long windowEnd = saleDate.toEpochDay() + WINDOW_DAYS;
+        BigDecimal perShare = loss.divide(match.getMatchedQuantity(), PER_SHARE_SCALE, RoundingMode.HALF_UP);
+        long holdingDays = ChronoUnit.DAYS.between(match.getDateAcquired().toLocalDate(), saleDate);
+
+        BigDecimal unreplaced = match.getMatchedQuantity();
+        int i = index.available(index.lowerBound(saleDate.toEpochDay() - WINDOW_DAYS));
+        while (i < index.lots.length && index.epochDays[i] <= windowEnd && unreplaced.signum() > 0) {
+            if (i == soldPosition) {
+                // the shares being sold do not replace themselves
+                i = index.available(i + 1);
+                continue;
+            }
+            BigDecimal shares = index.sharesLeft[i].min(unreplaced);
+            index.sharesLeft[i] = index.sharesLeft[i].subtract(shares);
+            unreplaced = unreplaced.subtract(shares);
+            tranches.computeIfAbsent(index.lots[i], lot -> new ArrayDeque<>())
+                    .addLast(new Tranche(shares, perShare, holdingDays));
+            if (index.sharesLeft[i].signum() <= 0) {
+                index.useUp(i);
+            }
+            i = index.available(i);
+        }
+
+        BigDecimal replaced = match.getMatchedQuantity().subtract(unreplaced);
+        if (replaced.signum() > 0) {
+            match.setWashSaleDisallowed(perShare.multiply(replaced).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    /** Reported gain is proceeds - basis + disallowed loss, split short/long term by the (carried) holding period. */
+    private static void classify(MatchedTrade match) {
+        BigDecimal gain = match.getProceeds().subtract(match.getCostBasis());
+        if (match.getWashSaleDisallowed() != null) {
+            gain = gain.add(match.getWashSaleDisallowed());
+        }
+        long daysHeld = ChronoUnit.DAYS.between(match.getDateAcquired().toLocalDate(),
+                match.getDateSold().toLocalDate());
+        if (daysHeld < 365) {
+            match.setStGainOrLoss(gain);
+            match.setLtGainOrLoss(BigDecimal.ZERO);
+        } else {
+            match.setStGainOrLoss(BigDecimal.ZERO);
+            match.setLtGainOrLoss(gain);
+        }
+    }
+
+    /** Tranches not consumed by a sale sit on open shares; at most the lot's open quantity keeps one. */
+    private static void keepOpenAdjustment(Trade lot, Deque<Tranche> carried) {
+        BigDecimal open = lot.getMatchedQtyLeft() == null ? BigDecimal.ZERO : lot.getMatchedQtyLeft();
+        BigDecimal adjustment = BigDecimal.ZERO;
+        for (Tranche tranche : carried) {
+            if (open.signum() <= 0) {
+                break;
+            }
+            BigDecimal shares = tranche.shares().min(open);
+            adjustment = adjustment.add(tranche.perShare().multiply(shares));
+            open = open.subtract(shares);
+        }
+        lot.setBasisAdjustment(adjustment.signum() > 0 ? adjustment.setScale(2, RoundingMode.HALF_UP) : null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV reader (RFC 4180: quoted fields, doubled quotes, line breaks inside quotes). Reads one
+ * character at a time from a buffered stream and hands each row to the handler, so memory use does not
+ * depend on file size. Blank lines are skipped.
+ */
+public final class CsvRowReader {
+
+    private CsvRowReader() {
+    }
+
+    public static void read(InputStream in, RowHandler handler) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean rowHasContent = false;
+        int line = 1;
+        int rowStart = 1;
+
+        int c = reader.read();
+        if (c == '\uFEFF') {
+            // Excel writes a BOM at the start of UTF-8 CSVs
+            c = reader.read();
+        }
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        cell.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    cell.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                rowHasContent = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+                rowHasContent = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (rowHasContent || cell.length() > 0) {
+                    cells.add(cell.toString());
+                    handler.row(rowStart, cells);
+                    cells = new ArrayList<>(cells.size());
+                }
+                cell.setLength(0);
+                rowHasContent = false;
+                line++;
+                rowStart = line;
+            } else {
+                cell.append((char) c);
+            }
+        }
+        if (rowHasContent || cell.length() > 0) {
+            cells.add(cell.toString());
+            handler.row(rowStart, cells);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns one statement row into a StockTrade or OptionTrade using a column mapping (trade field -> column
+ * header). The rules are the ones the browser import applied: absolute values for numbers, options
+ * multiplied to shares, and commission derived from the net amount when the statement has one.
+ */
+public class ImportRowMapper {
+
+    public static final List<String> FIELDS =
+            List.of("action", "tradeDate", "symbol", "quantity", "price", "commission", "fee", "netAmount");
+    private static final Set<String> REQUIRED = Set.of("action", "tradeDate", "symbol", "quantity");
+    private static final BigDecimal SHARES_PER_CONTRACT = BigDecimal.valueOf(100);
+
+    // header spellings seen in broker exports (ColumnMappingStep.tsx), used when no profile is given
+    private static final Map<String, List<String>> VARIATIONS = Map.of(
+            "tradeDate", List.of("tradedate", "trade date", "date", "run date", "rundate"),
+            "action", List.of("action", "type", "transaction type", "transactiontype", "buy/sell"),
+            "symbol", List.of("symbol", "ticker", "security"),
+            "quantity", List.of("quantity", "qty", "shares"),
+            "price", List.of("price", "price ($)", "price($)", "trade price"),
+            "commission", List.of("commission", "commission fees", "commission fees ($)"),
+            "fee", List.of("fee", "fees", "tax", "fees ($)"),
+            "netAmount", List.of("netamount", "net amount", "total", "amount", "amount ($)", "net", "cost",
+                    "cost basis"));
+
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final TradeDateParser dateParser = new TradeDateParser();
+
+    /**
+     * @param header  the header row of the file
+     * @param mapping trade field -> header text; null to match headers by their usual names
+     * @throws IllegalArgumentException if a required field has no column
+     */
+    public ImportRowMapper(List<String> header, Map<String, String> mapping) {
+        Map<String, Integer> headerIndex = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            headerIndex.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        Map<String, String> fields = mapping != null ? mapping : autoDetect(headerIndex.keySet());
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (field.getValue() == null || field.getValue().isBlank()) {
+                continue;
+            }
+            Integer index = headerIndex.get(field.getValue().trim().toLowerCase(Locale.ROOT));
+            if (index == null) {
+                throw new IllegalArgumentException("Column \"" + field.getValue() + "\" not found");
+            }
+            columnIndex.put(field.getKey(), index);
+        }
+        for (String field : REQUIRED) {
+            if (!columnIndex.containsKey(field)) {
+                throw new IllegalArgumentException("No column mapped to required field \"" + field + "\"");
+            }
+        }
+    }
+
+    private static Map<String, String> autoDetect(Set<String> headers) {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        for (String field : FIELDS) {
+            if (headers.contains(field.toLowerCase(Locale.ROOT))) {
+                mapping.put(field, field);
+                continue;
+            }
+            VARIATIONS.get(field).stream()
+                    .filter(headers::contains)
+                    .filter(header -> !mapping.containsValue(header))
+                    .findFirst()
+                    .ifPresent(header -> mapping.put(field, header));
+        }
+        return mapping;
+    }
+
+    /** @throws IllegalArgumentException with a message for the user if the row cannot be imported */
+    public Trade toTrade(List<String> cells) {
+        ActionType action = TradeActionNormalizer.normalize(required(cells, "action"));
+        if (action == null) {
+            throw new IllegalArgumentException("Unknown action \"" + cell(cells, "action") + "\"");
+        }
+
+        String symbol = required(cells, "symbol");
+        OccSymbolParser.OptionContract contract = OccSymbolParser.parseChecked(symbol);
+        Trade trade;
+        BigDecimal quantity = number(required(cells, "quantity"), "quantity");
+        if (contract != null) {
+            OptionTrade optionTrade = new OptionTrade();
+            OccSymbolParser.populate(optionTrade, contract);
+            // contracts -> shares, as the rest of the service counts option quantity in shares
+            quantity = quantity.multiply(SHARES_PER_CONTRACT);
+            trade = optionTrade;
+        } else {
+            trade = new StockTrade();
+            trade.setSymbol(symbol.trim().toUpperCase(Locale.ROOT));
+        }
+        trade.setAction(action);
+        trade.setTradeDate(dateParser.parse(required(cells, "tradeDate")));
+        trade.setQuantity(quantity);
+
+        BigDecimal price = optionalNumber(cells, "price");
+        BigDecimal commission = optionalNumber(cells, "commission");
+        BigDecimal fee = optionalNumber(cells, "fee");
+        BigDecimal netAmount = columnIndex.containsKey("netAmount") && !cell(cells, "netAmount").isEmpty()
+                ? number(cell(cells, "netAmount"), "netAmount")
+                : null;
+        BigDecimal gross = quantity.multiply(price);
+        if (netAmount != null) {
+            // statements with a net amount fold commission and fees into it
+            commission = netAmount.subtract(gross);
+            fee = BigDecimal.ZERO;
+        } else {
+            netAmount = gross.subtract(commission.add(fee));
+        }
+        trade.setPrice(price);
+        trade.setCommission(commission);
+        trade.setFee(fee);
+        trade.setNetAmount(netAmount);
+        trade.setMatchedQtyLeft(quantity);
+        return trade;
+    }
+
+    private String cell(List<String> cells, String field) {
+        Integer index = columnIndex.get(field);
+        if (index == null || index >= cells.size() || cells.get(index) == null) {
+            return "";
+        }
+        return cells.get(index).trim();
+    }
+
+    private String required(List<String> cells, String field) {
+        String value = cell(cells, field);
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return value;
+    }
+
+    private BigDecimal optionalNumber(List<String> cells, String field) {
+        String value = cell(cells, field);
+        return value.isEmpty() ? BigDecimal.ZERO : number(value, field);
+    }
+
+    private static BigDecimal number(String value, String field) {
+        // "$1,234.50", "(12.00)" and "-12" all import as positive amounts; the action carries the direction
+        String digits = value.replaceAll("[$,()\\s]", "");
+        try {
+            return new BigDecimal(digits).abs();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + field + ": " + value);
+        }
+    }
+}
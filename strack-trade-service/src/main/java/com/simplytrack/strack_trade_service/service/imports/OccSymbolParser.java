@@ -0,0 +1,271 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Parses OCC option symbols: root + expiration (yyMMdd) + C/P + strike, e.g. {@code AAPL240119C00150000}
+ * or the broker short forms {@code -AAPL240119C150} / {@code AAPL240119C152.5}. Same rules as the
+ * front end's parseOptionSymbol.ts.
+ *
+ * The parser scans the CharSequence once from the end (strike, C/P, date, then root), with no regex and no
+ * intermediate strings. Parsed contracts go into a small direct-mapped cache keyed by the symbol's
+ * characters, so a statement that trades the same contracts over and over gets the same OptionContract
+ * instance back without allocating.
+ */
+public final class OccSymbolParser {
+
+    /**
+     * One option contract. {@code symbol} is the canonical OCC form (root + yyMMdd + C/P + 8-digit strike
+     * in thousandths), so the short and long spellings of a contract compare equal.
+     */
+    public record OptionContract(String symbol, String root, LocalDate expiration, String optionType,
+            BigDecimal strike) {
+
+        public boolean isCall() {
+            return "CALL".equals(optionType);
+        }
+    }
+
+    /** Cache entry: the (cleaned, upper-cased) spelling it was parsed from, which may be a short form. */
+    private record Entry(int hash, String spelling, OptionContract contract) {
+    }
+
+    private static final int CACHE_SIZE = 4096; // power of two
+    // racy by design: entries are immutable, so a reader sees null, an older entry or the current one
+    private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+    private static final long MAX_STRIKE_THOUSANDTHS = 99_999_999L;
+
+    private OccSymbolParser() {
+    }
+
+    /**
+     * Never throws, so it is safe on stored symbols that were never validated.
+     *
+     * @return the contract, or null if {@code raw} is not an OCC option symbol (i.e. a stock ticker, or an
+     *         option symbol with an expiration date that does not exist)
+     */
+    public static OptionContract parse(CharSequence raw) {
+        int start = start(raw);
+        int end = end(raw, start);
+
+        int hash = hash(raw, start, end);
+        int slot = hash & (CACHE_SIZE - 1);
+        Entry cached = CACHE[slot];
+        if (cached != null && cached.hash() == hash && regionEquals(cached.spelling(), raw, start, end)) {
+            return cached.contract();
+        }
+
+        OptionContract parsed = parseUncached(raw, start, end, false);
+        if (parsed != null) {
+            String spelling = regionEquals(parsed.symbol(), raw, start, end)
+                    ? parsed.symbol()
+                    : upperCase(raw, start, end);
+            CACHE[slot] = new Entry(hash, spelling, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * parse() for input being validated (imports, new trades): a symbol in OCC form with an impossible
+     * expiration is an error instead of a stock ticker.
+     *
+     * @throws IllegalArgumentException if the expiration date does not exist
+     */
+    public static OptionContract parseChecked(CharSequence raw) {
+        OptionContract contract = parse(raw);
+        if (contract != null) {
+            return contract;
+        }
+        int start = start(raw);
+        return parseUncached(raw, start, end(raw, start), true);
+    }
+
+    /**
+     * Fills the option fields of {@code trade} from its usymbol.
+     *
+     * @throws IllegalArgumentException if the usymbol is missing or not a valid OCC symbol
+     */
+    public static OptionContract populate(OptionTrade trade) {
+        OptionContract contract = trade.getUsymbol() == null ? null : parseChecked(trade.getUsymbol());
+        if (contract == null) {
+            throw new IllegalArgumentException("Invalid OCC option symbol " + trade.getUsymbol());
+        }
+        populate(trade, contract);
+        return contract;
+    }
+
+    /** Sets the usymbol (canonical form), root symbol, type, expiration and strike of {@code trade}. */
+    public static void populate(OptionTrade trade, OptionContract contract) {
+        trade.setUsymbol(contract.symbol());
+        trade.setSymbol(contract.root());
+        trade.setOptionType(contract.optionType());
+        trade.setExpirationDate(contract.expiration().atStartOfDay());
+        trade.setStrikePrice(contract.strike().doubleValue());
+        if (trade.getSharesPerContract() == 0) {
+            trade.setSharesPerContract(100);
+        }
+    }
+
+    /** Brokers prefix option symbols with '-' or spaces. */
+    private static int start(CharSequence raw) {
+        int start = 0;
+        while (start < raw.length() && !isAlphanumeric(raw.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int end(CharSequence raw, int start) {
+        int end = raw.length();
+        while (end > start && raw.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /** @param strict throw for an impossible expiration date instead of returning null */
+    private static OptionContract parseUncached(CharSequence s, int start, int end, boolean strict) {
+        // strike: digits with at most one '.', scanned backwards
+        int i = end - 1;
+        int dot = -1;
+        while (i >= start && (isDigit(s.charAt(i)) || (s.charAt(i) == '.' && dot < 0))) {
+            if (s.charAt(i) == '.') {
+                dot = i;
+            }
+            i--;
+        }
+        int strikeStart = i + 1;
+        if (strikeStart == end || strikeStart == dot || dot == end - 1 || i < start) {
+            return null;
+        }
+        char type = upper(s.charAt(i));
+        if (type != 'C' && type != 'P') {
+            return null;
+        }
+        int dateStart = i - 6;
+        if (dateStart <= start) {
+            // need 6 date digits and at least one root character
+            return null;
+        }
+        for (int d = dateStart; d < i; d++) {
+            if (!isDigit(s.charAt(d))) {
+                return null;
+            }
+        }
+        for (int r = start; r < dateStart; r++) {
+            if (!isAlphanumeric(s.charAt(r))) {
+                return null;
+            }
+        }
+
+        long thousandths = strikeThousandths(s, strikeStart, end, dot);
+        if (thousandths < 0 || thousandths > MAX_STRIKE_THOUSANDTHS) {
+            return null;
+        }
+        LocalDate expiration;
+        try {
+            expiration = LocalDate.of(2000 + digits(s, dateStart, dateStart + 2),
+                    digits(s, dateStart + 2, dateStart + 4), digits(s, dateStart + 4, i));
+        } catch (DateTimeException e) {
+            if (strict) {
+                throw new IllegalArgumentException("Invalid expiration date in option symbol " + s);
+            }
+            return null;
+        }
+
+        StringBuilder canonical = new StringBuilder(dateStart - start + 15);
+        for (int r = start; r < dateStart; r++) {
+            canonical.append(upper(s.charAt(r)));
+        }
+        String root = canonical.toString();
+        canonical.append(s, dateStart, i).append(type);
+        String strikeDigits = Long.toString(thousandths);
+        for (int pad = strikeDigits.length(); pad < 8; pad++) {
+            canonical.append('0');
+        }
+        canonical.append(strikeDigits);
+
+        return new OptionContract(canonical.toString(), root, expiration, type == 'C' ? "CALL" : "PUT",
+                BigDecimal.valueOf(thousandths, 3).stripTrailingZeros());
+    }
+
+    /** @return the strike in thousandths of a dollar, or -1 if it has more than 3 decimals */
+    private static long strikeThousandths(CharSequence s, int start, int end, int dot) {
+        if (dot >= 0) {
+            int decimals = end - dot - 1;
+            if (decimals > 3 || dot - start > 8) {
+                return -1;
+            }
+            long fraction = digitsLong(s, dot + 1, end);
+            for (int d = decimals; d < 3; d++) {
+                fraction *= 10;
+            }
+            return digitsLong(s, start, dot) * 1000 + fraction;
+        }
+        int length = end - start;
+        if (length == 8) {
+            // OCC form: 8 digits with 3 implied decimals
+            return digitsLong(s, start, end);
+        }
+        // short forms without a '.' are whole dollars
+        return length > 5 ? -1 : digitsLong(s, start, end) * 1000;
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + upper(s.charAt(i));
+        }
+        // spread the high bits into the slot index
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean regionEquals(String upperCase, CharSequence s, int start, int end) {
+        if (upperCase.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (upperCase.charAt(i - start) != upper(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String upperCase(CharSequence s, int start, int end) {
+        StringBuilder out = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            out.append(upper(s.charAt(i)));
+        }
+        return out.toString();
+    }
+
+    private static int digits(CharSequence s, int start, int end) {
+        return (int) digitsLong(s, start, end);
+    }
+
+    private static long digitsLong(CharSequence s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return isDigit(c) || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static char upper(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - 32) : c;
+    }
+}
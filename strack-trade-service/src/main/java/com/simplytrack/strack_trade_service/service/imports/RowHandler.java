@@ -0,0 +1,14 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import java.util.List;
+
+/** Receives the rows of a statement file one at a time, in file order. */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * @param rowNumber 1-based row (line) number in the file, for error messages
+     * @param cells     cell text; blank cells are empty strings, trailing blank cells may be missing
+     */
+    void row(int rowNumber, List<String> cells);
+}
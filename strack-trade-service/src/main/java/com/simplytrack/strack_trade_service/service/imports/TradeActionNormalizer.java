@@ -0,0 +1,78 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.types.ActionType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps broker action strings ("YOU BOUGHT", "Sell to Open", "BTC", ...) to an ActionType. The vocabulary is
+ * the one in the front end's fixTradeAction.ts. An exact match wins; otherwise the longest known phrase
+ * contained in the action decides, so "SELL SHORT" is a short rather than a sell and "CLOSE LONG" a sell
+ * rather than a buy.
+ */
+public final class TradeActionNormalizer {
+
+    private static final Map<String, ActionType> EXACT = new HashMap<>();
+    // phrases of 3+ characters, longest first; "S", "BC" and the like only ever match exactly
+    private static final List<Map.Entry<String, ActionType>> CONTAINED = new ArrayList<>();
+
+    static {
+        register(ActionType.BUY, "BUY", "BOUGHT", "BUY TO OPEN", "BUY OPEN", "BUY LONG", "OPEN LONG",
+                "BUY MARKET", "BUY LMT", "BUY LIMIT", "BUYL", "PURCHASE", "ACQUIRE", "ACQUISITION",
+                "REINVESTMENT", "REINVEST", "YOU BOUGHT", "EXERCISE", "EXERCISED", "OPENING PURCHASE", "LONG",
+                "LNG", "ENTRY LONG", "ENTRY BUY", "INITIAL BUY", "BUY IN", "LONG ENTRY", "LONG INIT", "LONG IN",
+                "BUY ORDER", "BUY TXN", "BUY TRANSACTION", "YOU BOUGHT OPENING");
+        register(ActionType.COVER, "BUYTOCOVER", "BUY TO COVER", "BTC", "BC", "COVER", "COVER SHORT",
+                "COVERING", "CVR", "CVRSHRT", "BUY TO CLOSE", "CLOSE SHORT", "CLOSE SHORT POSITION", "EXIT SHORT",
+                "SHORT COVER", "SHORTCOVER", "COVER POSITION", "SHORT EXIT", "SHORT BUY", "BTSC",
+                "BUY SHORT CLOSE", "REMOVE SHORT", "REMOVE SHORT POS", "UNSHORT", "REVERSE SHORT", "B2C",
+                "SHORT OUT", "SHORT CLOSE", "YOU BOUGHT CLOSING");
+        register(ActionType.SELL, "SELL", "SOLD", "S", "SL", "SELL TO CLOSE", "SELL CLOSE", "SELL LONG",
+                "CLOSE LONG", "SELL MARKET", "SELL LMT", "SELL LIMIT", "SELLL", "DISPOSAL", "DISP", "DISPOSITION",
+                "LIQUIDATE", "LIQUIDATION", "YOU SOLD", "REDEMPTION", "CLOSING SALE", "WITHDRAW", "WTHDR",
+                "YOU SOLD CLOSING");
+        register(ActionType.SHORT, "SELLSHORT", "SELL SHORT", "SHORT", "SELL TO OPEN", "SELL OPEN",
+                "OPEN SHORT", "SHORT OPEN", "SHORT MARKET", "SHORT LMT", "SHORT LIMIT", "SHTSELL", "SHORT SELL",
+                "SHORTING", "ENTRY SHORT", "SHORT ENTRY", "INITIAL SHORT", "SHORT INIT", "YOU SOLD OPENING");
+        CONTAINED.sort(Comparator.comparingInt((Map.Entry<String, ActionType> e) -> e.getKey().length()).reversed());
+    }
+
+    private static void register(ActionType action, String... phrases) {
+        for (String phrase : phrases) {
+            EXACT.put(phrase, action);
+            if (phrase.length() >= 3) {
+                CONTAINED.add(Map.entry(phrase, action));
+            }
+        }
+    }
+
+    private TradeActionNormalizer() {
+    }
+
+    /** @return the action, or null if the string is not a recognizable trade action */
+    public static ActionType normalize(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        String action = raw.trim().toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        ActionType exact = EXACT.get(action);
+        if (exact != null) {
+            return exact;
+        }
+        for (Map.Entry<String, ActionType> phrase : CONTAINED) {
+            if (action.contains(phrase.getKey())) {
+                return phrase.getValue();
+            }
+        }
+        // dividend reinvestments come through as buys
+        if (action.contains("DIVIDEND") || (action.contains("DIV") && action.contains("REINV"))) {
+            return ActionType.BUY;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses the date formats brokers export (the list in the front end's ConvertToDate.tsx). A statement uses
+ * one format throughout, so the parser remembers the last format that worked and tries it first; one
+ * instance per import, not shared between threads.
+ */
+public class TradeDateParser {
+
+    private static final List<DateTimeFormatter> FORMATS = List.of(
+            formatter("M/d/yyyy"),
+            formatter("M/d/yy"),
+            formatter("yyyy-M-d"),
+            formatter("d-MMM-yyyy"),
+            formatter("yyyyMMdd"),
+            formatter("EEE, MMM d yyyy"),
+            formatter("EEEE, MMM d, yyyy HH:mm:ss"),
+            formatter("M/d/yyyy H:mm[:ss]"),
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+
+    private int lastMatch;
+
+    private static DateTimeFormatter formatter(String pattern) {
+        return new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(pattern)
+                .toFormatter(Locale.US);
+    }
+
+    /** @throws IllegalArgumentException if no known format matches */
+    public LocalDateTime parse(String raw) {
+        String value = raw.trim();
+        for (int i = 0; i < FORMATS.size(); i++) {
+            int index = (lastMatch + i) % FORMATS.size();
+            LocalDateTime parsed = tryParse(FORMATS.get(index), value);
+            if (parsed != null) {
+                lastMatch = index;
+                return parsed;
+            }
+        }
+        throw new IllegalArgumentException("Invalid date: " + raw);
+    }
+
+    private static LocalDateTime tryParse(DateTimeFormatter format, String value) {
+        try {
+            TemporalAccessor parsed = format.parse(value);
+            if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+                // stored as UTC wall-clock time, like the browser import
+                return OffsetDateTime.from(parsed).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+            }
+            if (parsed.isSupported(ChronoField.HOUR_OF_DAY)) {
+                return LocalDateTime.from(parsed);
+            }
+            return LocalDate.from(parsed).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming XLSX reader for the first sheet of a workbook. Uses POI's SAX event API rather than loading a
+ * XSSFWorkbook, so only the shared-strings table is held in memory, not the cells. Cells are formatted the
+ * way Excel displays them (dates as e.g. 1/2/24), which TradeDateParser understands.
+ */
+public final class XlsxRowReader {
+
+    private XlsxRowReader() {
+    }
+
+    public static void read(InputStream in, RowHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(in);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Not a readable XLSX file: " + e.getMessage(), e);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, strings,
+                        new RowCollector(handler), new DataFormatter(Locale.US), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Not a readable XLSX file: " + e.getMessage(), e);
+        } finally {
+            // read-only use: revert rather than close, which would try to save the package
+            pkg.revert();
+        }
+    }
+
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // empty cells are not in the sheet XML at all; pad up to this cell's column
+            int column = new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cells.stream().anyMatch(cell -> !cell.isBlank())) {
+                handler.row(rowNum + 1, new ArrayList<>(cells));
+            }
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.simplytrack.strack_trade_service.types;
+
+public enum CorporateActionType { SPLIT, RENAME }
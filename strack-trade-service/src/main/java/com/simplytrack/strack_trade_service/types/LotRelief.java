@@ -0,0 +1,4 @@
+package com.simplytrack.strack_trade_service.types;
+
+/** Which open lot a closing trade relieves first (see LotBook). */
+public enum LotRelief { FIFO, LIFO, HIFO, SPECIFIC_ID }
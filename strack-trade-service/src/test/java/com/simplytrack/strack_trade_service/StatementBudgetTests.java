@@ -0,0 +1,120 @@
+package com.simplytrack.strack_trade_service;
+
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets for the hot endpoints, counted with Hibernate statistics. A budget that depends on the
+ * number of trades in the account (rather than being constant, or linear in the matches written) is an N+1.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatementBudgetTests {
+
+    private static final String USER = "budget@example.com";
+    private static final int PAIRS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Autowired
+    private MatchedTradeRepository matchedTradeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seedTrades() {
+        matchedTradeRepository.deleteAllInBatch();
+        tradeRepository.deleteAllInBatch();
+
+        // one buy/sell pair per symbol, so every pair becomes exactly one match
+        List<Trade> trades = new ArrayList<>();
+        LocalDateTime opened = LocalDateTime.of(2024, 1, 2, 10, 0);
+        for (int i = 0; i < PAIRS; i++) {
+            trades.add(trade("SYM" + i, ActionType.BUY, opened.plusDays(i)));
+            trades.add(trade("SYM" + i, ActionType.SELL, opened.plusDays(i + 30)));
+        }
+        tradeRepository.saveAll(trades);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    private static Trade trade(String symbol, ActionType action, LocalDateTime date) {
+        StockTrade trade = new StockTrade();
+        trade.setUserId(USER);
+        trade.setPortfolioName("main");
+        trade.setSymbol(symbol);
+        trade.setAction(action);
+        trade.setQuantity(BigDecimal.TEN);
+        trade.setMatchedQtyLeft(BigDecimal.TEN);
+        trade.setPrice(new BigDecimal("100.00"));
+        trade.setCommission(BigDecimal.ZERO);
+        trade.setFee(BigDecimal.ZERO);
+        trade.setNetAmount(new BigDecimal("1000.00"));
+        trade.setTradeDate(date);
+        return trade;
+    }
+
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request.with(user(USER).roles("USER"))).andExpect(status().isOk());
+        assertThat(statistics.getEntityFetchCount()).as("lazy entity fetches").isZero();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getTradesByUserIsOneQuery() throws Exception {
+        assertThat(statementsFor(get("/api/trades"))).isEqualTo(1);
+    }
+
+    @Test
+    void getMatchedTradesIsOneQuery() throws Exception {
+        mockMvc.perform(post("/api/trades/match").with(user(USER).roles("USER"))).andExpect(status().isOk());
+
+        assertThat(statementsFor(get("/api/trades/matchedTrades"))).isEqualTo(1);
+    }
+
+    @Test
+    void matchTradesDoesNotLoadTradesOneByOne() throws Exception {
+        long statements = statementsFor(post("/api/trades/match"));
+
+        // 2 match deletes + 1 quantity reset + 1 load + 1 portfolio settings (lot relief), one insert per match
+        // (identity ids cannot be batched), and the touched trades' matchedQtyLeft updates, which share one
+        // batched statement
+        assertThat(statements).isLessThanOrEqualTo(5 + PAIRS + 1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(2L * PAIRS);
+    }
+}
@@ -0,0 +1,173 @@
+package com.simplytrack.strack_trade_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.simplytrack.strack_trade_service.DTO.MatchedTradeDTO;
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.OptionMatch;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.StockMatch;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and serialization cost of the trade and match responses for a 50k-trade account:
+ * full MatchedTrade entities (what /api/trades/match used to return) against MatchedTradeDTO, each
+ * plain and gzipped. Sizes are printed once at setup.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.simplytrack.strack_trade_service.benchmark.MatchPayloadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchPayloadBenchmark {
+
+    static final int TRADES = 50_000;
+    static final String[] SYMBOLS = { "AAPL", "MSFT", "TSLA", "NVDA", "AMZN", "SPY", "QQQ", "META" };
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private List<Trade> trades;
+    private List<MatchedTrade> matches;
+    private List<MatchedTradeDTO> dtos;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        trades = new ArrayList<>(TRADES);
+        matches = new ArrayList<>(TRADES / 2);
+        LocalDateTime start = LocalDateTime.of(2022, 1, 3, 9, 30);
+
+        // buy/sell pairs, one in five an option contract
+        for (int i = 0; i < TRADES / 2; i++) {
+            boolean option = i % 5 == 0;
+            String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            BigDecimal quantity = BigDecimal.valueOf(option ? 100 : 1 + random.nextInt(200));
+            LocalDateTime opened = start.plusHours(i);
+            LocalDateTime closed = opened.plusDays(1 + random.nextInt(500));
+
+            Trade buy = trade(option, i * 2L, symbol, ActionType.BUY, quantity, 50 + random.nextInt(400), opened);
+            Trade sell = trade(option, i * 2L + 1, symbol, ActionType.SELL, quantity, 50 + random.nextInt(400), closed);
+            trades.add(buy);
+            trades.add(sell);
+
+            MatchedTrade match = option ? new OptionMatch() : new StockMatch();
+            match.setId((long) i);
+            match.setBuyTrade(buy);
+            match.setSellTrade(sell);
+            match.setMatchTimestamp(closed);
+            match.setMatchedPrice(sell.getPrice());
+            match.setMatchedQuantity(quantity);
+            match.setDateAcquired(opened);
+            match.setDateSold(closed);
+            match.setProceeds(sell.getNetAmount());
+            match.setCostBasis(buy.getNetAmount());
+            BigDecimal gain = sell.getNetAmount().subtract(buy.getNetAmount());
+            match.setStGainOrLoss(gain);
+            match.setLtGainOrLoss(BigDecimal.ZERO);
+            matches.add(match);
+        }
+        dtos = matches.stream().map(MatchedTradeDTO::from).toList();
+
+        report("trades (GET /api/trades)", mapper.writeValueAsBytes(trades));
+        report("matches as entities", mapper.writeValueAsBytes(matches));
+        report("matches as DTOs", mapper.writeValueAsBytes(dtos));
+    }
+
+    private static Trade trade(boolean option, long id, String symbol, ActionType action, BigDecimal quantity,
+            int price, LocalDateTime date) {
+        Trade trade;
+        if (option) {
+            OptionTrade optionTrade = new OptionTrade();
+            optionTrade.setOptionType("CALL");
+            optionTrade.setExpirationDate(date.plusDays(30));
+            optionTrade.setStrikePrice(price);
+            optionTrade.setSharesPerContract(100);
+            optionTrade.setUsymbol(symbol + "240119C00" + price + "000");
+            trade = optionTrade;
+        } else {
+            trade = new StockTrade();
+        }
+        trade.setId(id);
+        trade.setUserId("bench@example.com");
+        trade.setPortfolioName("main");
+        trade.setSymbol(symbol);
+        trade.setAction(action);
+        trade.setQuantity(quantity);
+        trade.setPrice(BigDecimal.valueOf(price).add(new BigDecimal("0.25")));
+        trade.setCommission(BigDecimal.ZERO);
+        trade.setFee(BigDecimal.ZERO);
+        trade.setTradeDate(date);
+        trade.setNetAmount(trade.getPrice().multiply(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.ZERO);
+        return trade;
+    }
+
+    private static void report(String name, byte[] json) throws IOException {
+        System.out.printf("%-28s %,12d bytes  %,12d bytes gzipped%n", name, json.length, gzip(json).length);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] matchesAsEntities() throws IOException {
+        return mapper.writeValueAsBytes(matches);
+    }
+
+    @Benchmark
+    public byte[] matchesAsDtos() throws IOException {
+        return mapper.writeValueAsBytes(matches.stream().map(MatchedTradeDTO::from).toList());
+    }
+
+    @Benchmark
+    public byte[] matchesAsDtosGzipped() throws IOException {
+        return gzip(mapper.writeValueAsBytes(dtos));
+    }
+
+    @Benchmark
+    public byte[] tradesGzipped() throws IOException {
+        return gzip(mapper.writeValueAsBytes(trades));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MatchPayloadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
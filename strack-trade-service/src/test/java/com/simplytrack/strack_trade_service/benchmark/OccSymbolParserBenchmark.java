@@ -0,0 +1,121 @@
+package com.simplytrack.strack_trade_service.benchmark;
+
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parse throughput of OccSymbolParser against the regex approach of the front end's parseOptionSymbol.ts,
+ * over a statement-like stream of option symbols: a few hundred distinct contracts repeated (cache hits)
+ * and a stream where every symbol is new (cache misses). Run with -prof gc to see allocation per parse.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.simplytrack.strack_trade_service.benchmark.OccSymbolParserBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OccSymbolParserBenchmark {
+
+    static final String[] ROOTS = { "AAPL", "MSFT", "TSLA", "NVDA", "AMZN", "SPY", "QQQ", "META" };
+    static final int SYMBOLS = 10_000;
+    static final int CONTRACTS = 300;
+
+    private static final Pattern REGEX = Pattern.compile("^([A-Z0-9]+)(\\d{6})([CP])(\\d+(?:\\.\\d+)?|\\d+)$");
+
+    private String[] repeated;
+    private String[] unique;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] contracts = new String[CONTRACTS];
+        for (int i = 0; i < CONTRACTS; i++) {
+            contracts[i] = symbol(random, i % 2 == 0);
+        }
+        repeated = new String[SYMBOLS];
+        unique = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            repeated[i] = contracts[random.nextInt(CONTRACTS)];
+            unique[i] = symbol(random, i % 2 == 0);
+        }
+    }
+
+    /** Long OCC form or the short broker form with a leading '-'. */
+    private static String symbol(Random random, boolean occForm) {
+        String root = ROOTS[random.nextInt(ROOTS.length)];
+        LocalDate expiration = LocalDate.of(2020, 1, 3).plusWeeks(random.nextInt(300));
+        String date = String.format("%02d%02d%02d", expiration.getYear() % 100, expiration.getMonthValue(),
+                expiration.getDayOfMonth());
+        char type = random.nextBoolean() ? 'C' : 'P';
+        int strikeCents = (10 + random.nextInt(600)) * 100 + (random.nextBoolean() ? 50 : 0);
+        return occForm
+                ? root + date + type + String.format("%08d", strikeCents * 10)
+                : "-" + root + date + type + BigDecimal.valueOf(strikeCents, 2).stripTrailingZeros().toPlainString();
+    }
+
+    private String nextOf(String[] symbols) {
+        String symbol = symbols[next];
+        next = next + 1 == symbols.length ? 0 : next + 1;
+        return symbol;
+    }
+
+    @Benchmark
+    public OccSymbolParser.OptionContract repeatedContracts() {
+        return OccSymbolParser.parse(nextOf(repeated));
+    }
+
+    @Benchmark
+    public OccSymbolParser.OptionContract uniqueContracts() {
+        return OccSymbolParser.parse(nextOf(unique));
+    }
+
+    @Benchmark
+    public void regexRepeatedContracts(Blackhole blackhole) {
+        regexParse(nextOf(repeated), blackhole);
+    }
+
+    /** What parseOptionSymbol.ts does, in Java: clean, regex match, substring the groups. */
+    private static void regexParse(String raw, Blackhole blackhole) {
+        String cleaned = raw.replaceFirst("^[^A-Za-z0-9]*", "").toUpperCase();
+        Matcher m = REGEX.matcher(cleaned);
+        if (!m.matches()) {
+            return;
+        }
+        String exp = m.group(2);
+        blackhole.consume(m.group(1));
+        blackhole.consume(LocalDate.of(2000 + Integer.parseInt(exp.substring(0, 2)),
+                Integer.parseInt(exp.substring(2, 4)), Integer.parseInt(exp.substring(4, 6))));
+        blackhole.consume(m.group(3).equals("C") ? "CALL" : "PUT");
+        blackhole.consume(new BigDecimal(m.group(4)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OccSymbolParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.simplytrack.strack_trade_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /actuator/sqlstats exposes query strings and pool state and can reset the Hibernate counters, so unlike
+ * health or metrics it is not open to anonymous callers or ordinary users.
+ */
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=sqlstats")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatsEndpointTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousCallersCannotReadOrReset() throws Exception {
+        mockMvc.perform(get("/actuator/sqlstats")).andExpect(status().is4xxClientError());
+        mockMvc.perform(delete("/actuator/sqlstats")).andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void usersCannotReadOrReset() throws Exception {
+        mockMvc.perform(get("/actuator/sqlstats").with(user("user@example.com").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/sqlstats").with(user("user@example.com").roles("USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void adminsCanReadAndReset() throws Exception {
+        mockMvc.perform(get("/actuator/sqlstats").with(user("admin@example.com").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hibernate").exists());
+        mockMvc.perform(delete("/actuator/sqlstats").with(user("admin@example.com").roles("ADMIN")))
+                .andExpect(status().is2xxSuccessful());
+    }
+}
@@ -0,0 +1,307 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.CorporateAction;
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.StockMatch;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.repository.CorporateActionRepository;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.CorporateActionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Splits and renames against H2 (test profile): the set-based UPDATEs apply() runs over stored trades and
+ * matches, and restate() for trades imported after an action was applied.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CorporateActionServiceTests {
+
+    private static final String USER = "alice";
+
+    @Autowired
+    private CorporateActionService service;
+
+    @Autowired
+    private CorporateActionRepository actionRepository;
+
+    @Autowired
+    private TradeSimulationService simulation;
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Autowired
+    private MatchedTradeRepository matchedTradeRepository;
+
+    @BeforeEach
+    void emptyTheBook() {
+        matchedTradeRepository.deleteAllInBatch();
+        tradeRepository.deleteAllInBatch();
+        actionRepository.deleteAllInBatch();
+    }
+
+    private CorporateAction split(String symbol, String exDate, int to, int from, boolean applied) {
+        CorporateAction split = action(symbol, CorporateActionType.SPLIT, exDate);
+        split.setRatioTo(BigDecimal.valueOf(to));
+        split.setRatioFrom(BigDecimal.valueOf(from));
+        return save(split, applied);
+    }
+
+    private CorporateAction rename(String symbol, String newSymbol, String exDate, boolean applied) {
+        CorporateAction rename = action(symbol, CorporateActionType.RENAME, exDate);
+        rename.setNewSymbol(newSymbol);
+        return save(rename, applied);
+    }
+
+    private static CorporateAction action(String symbol, CorporateActionType type, String exDate) {
+        CorporateAction action = new CorporateAction();
+        action.setSymbol(symbol);
+        action.setType(type);
+        action.setExDate(LocalDate.parse(exDate));
+        return action;
+    }
+
+    private CorporateAction save(CorporateAction action, boolean applied) {
+        if (applied) {
+            action.setAppliedAt(LocalDateTime.of(2024, 12, 1, 0, 0));
+        }
+        return actionRepository.save(action);
+    }
+
+    private static StockTrade stock(String symbol, ActionType action, String date, int quantity, int open,
+            String price) {
+        StockTrade trade = new StockTrade();
+        trade.setUserId(USER);
+        trade.setPortfolioName("Main");
+        trade.setSymbol(symbol);
+        trade.setAction(action);
+        trade.setTradeDate(LocalDate.parse(date).atTime(10, 0));
+        trade.setQuantity(BigDecimal.valueOf(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.valueOf(open));
+        trade.setPrice(new BigDecimal(price));
+        return trade;
+    }
+
+    private static Trade buy(String symbol, String date, int quantity, String price) {
+        return stock(symbol, ActionType.BUY, date, quantity, quantity, price);
+    }
+
+    private Trade stored(String symbol, ActionType action, String date, int quantity, int open, String price) {
+        return tradeRepository.save(stock(symbol, action, date, quantity, open, price));
+    }
+
+    private MatchedTrade match(Trade buy, Trade sell, int quantity) {
+        StockMatch match = new StockMatch();
+        match.setBuyTrade(buy);
+        match.setSellTrade(sell);
+        match.setMatchTimestamp(LocalDateTime.of(2024, 12, 1, 0, 0));
+        match.setMatchedQuantity(BigDecimal.valueOf(quantity));
+        match.setMatchedPrice(sell.getPrice());
+        match.setDateAcquired(buy.getTradeDate());
+        match.setDateSold(sell.getTradeDate());
+        return matchedTradeRepository.save(match);
+    }
+
+    private Trade reload(Trade trade) {
+        return tradeRepository.findById(trade.getId()).orElseThrow();
+    }
+
+    private MatchedTrade reload(MatchedTrade match) {
+        return matchedTradeRepository.findById(match.getId()).orElseThrow();
+    }
+
+    @Test
+    void applyingASplitRestatesStockTradesAndMatchesBeforeTheExDate() {
+        Trade buy = stored("NVDA", ActionType.BUY, "2024-06-03", 10, 4, "1000");
+        Trade sell = stored("NVDA", ActionType.SELL, "2024-06-05", 6, 0, "1100");
+        Trade later = stored("NVDA", ActionType.SELL, "2024-06-12", 20, 20, "125");
+        Trade otherSymbol = stored("AMD", ActionType.BUY, "2024-06-03", 5, 5, "160");
+        OptionTrade call = new OptionTrade();
+        call.setUsymbol("NVDA240621C01000000");
+        OccSymbolParser.populate(call);
+        call.setUserId(USER);
+        call.setPortfolioName("Main");
+        call.setAction(ActionType.BUY);
+        call.setTradeDate(LocalDateTime.of(2024, 6, 3, 10, 0));
+        call.setQuantity(BigDecimal.valueOf(100));
+        call.setMatchedQtyLeft(BigDecimal.valueOf(100));
+        call.setPrice(new BigDecimal("40"));
+        call = tradeRepository.save(call);
+        MatchedTrade closedBefore = match(buy, sell, 6);
+        // sold on the ex-date: left for the next match run
+        MatchedTrade straddling = match(buy, later, 4);
+        CorporateAction split = split("NVDA", "2024-06-10", 10, 1, false);
+
+        CorporateAction applied = service.apply(split.getId());
+
+        assertThat(applied.getAppliedAt()).isNotNull();
+        assertThat(applied.getTradesAdjusted()).isEqualTo(2);
+        Trade restatedBuy = reload(buy);
+        assertThat(restatedBuy.getQuantity()).isEqualByComparingTo("100");
+        assertThat(restatedBuy.getMatchedQtyLeft()).isEqualByComparingTo("40");
+        assertThat(restatedBuy.getPrice()).isEqualByComparingTo("100");
+        Trade restatedSell = reload(sell);
+        assertThat(restatedSell.getQuantity()).isEqualByComparingTo("60");
+        assertThat(restatedSell.getPrice()).isEqualByComparingTo("110");
+        assertThat(reload(later).getQuantity()).isEqualByComparingTo("20");
+        assertThat(reload(otherSymbol).getQuantity()).isEqualByComparingTo("5");
+        // contracts are adjusted by the OCC under their own symbols
+        assertThat(reload(call).getQuantity()).isEqualByComparingTo("100");
+        assertThat(reload(call).getPrice()).isEqualByComparingTo("40");
+
+        MatchedTrade restatedMatch = reload(closedBefore);
+        assertThat(restatedMatch.getMatchedQuantity()).isEqualByComparingTo("60");
+        assertThat(restatedMatch.getMatchedPrice()).isEqualByComparingTo("110");
+        assertThat(reload(straddling).getMatchedQuantity()).isEqualByComparingTo("4");
+    }
+
+    @Test
+    void applyingARenameMovesEarlierTradesToTheNewSymbol() {
+        Trade before = stored("FB", ActionType.BUY, "2022-06-01", 10, 10, "190");
+        Trade onExDate = stored("FB", ActionType.BUY, "2022-06-09", 10, 10, "195");
+        CorporateAction rename = rename("FB", "META", "2022-06-09", false);
+
+        CorporateAction applied = service.apply(rename.getId());
+
+        assertThat(applied.getTradesAdjusted()).isEqualTo(1);
+        assertThat(reload(before).getSymbol()).isEqualTo("META");
+        assertThat(reload(before).getQuantity()).isEqualByComparingTo("10");
+        assertThat(reload(onExDate).getSymbol()).isEqualTo("FB");
+    }
+
+    @Test
+    void pendingActionsAreAppliedInExDateOrder() {
+        Trade old = stored("FB", ActionType.BUY, "2021-05-03", 10, 10, "320");
+        split("META", "2024-06-10", 2, 1, false);
+        rename("FB", "META", "2022-06-09", false);
+
+        List<CorporateAction> applied = service.applyPending();
+
+        assertThat(applied).extracting(CorporateAction::getType)
+                .containsExactly(CorporateActionType.RENAME, CorporateActionType.SPLIT);
+        Trade restated = reload(old);
+        assertThat(restated.getSymbol()).isEqualTo("META");
+        assertThat(restated.getQuantity()).isEqualByComparingTo("20");
+        assertThat(restated.getPrice()).isEqualByComparingTo("160");
+    }
+
+    @Test
+    void applyingAnActionDropsCachedSimulationSnapshots() {
+        stored("NVDA", ActionType.BUY, "2024-06-03", 10, 10, "1000");
+        Trade sale = stock("NVDA", ActionType.SELL, "2024-06-12", 100, 100, "125");
+        assertThat(simulation.simulate(USER, List.of(sale)).unmatchedQuantity()).isEqualByComparingTo("90");
+
+        service.apply(split("NVDA", "2024-06-10", 10, 1, false).getId());
+
+        // the snapshot is reloaded with the lot in post-split shares
+        assertThat(simulation.simulate(USER, List.of(sale)).unmatchedQuantity()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void anActionIsAppliedOnce() {
+        Trade buy = stored("NVDA", ActionType.BUY, "2024-06-03", 10, 10, "1000");
+        CorporateAction split = split("NVDA", "2024-06-10", 10, 1, false);
+        service.apply(split.getId());
+
+        assertThatThrownBy(() -> service.apply(split.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("was applied at");
+        assertThatThrownBy(() -> service.apply(-1L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No corporate action -1");
+        assertThat(reload(buy).getQuantity()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void incompleteActionsAreRejected() {
+        CorporateAction noRatio = action("NVDA", CorporateActionType.SPLIT, "2024-06-10");
+        noRatio.setRatioTo(BigDecimal.TEN);
+        CorporateAction noNewSymbol = action("FB", CorporateActionType.RENAME, "2022-06-09");
+
+        assertThatThrownBy(() -> service.create(noRatio))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("positive ratioTo and ratioFrom");
+        assertThatThrownBy(() -> service.create(noNewSymbol))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("newSymbol");
+        assertThat(actionRepository.count()).isZero();
+    }
+
+    @Test
+    void lateImportsBeforeAnAppliedSplitAreStoredInPostSplitShares() {
+        split("NVDA", "2024-06-10", 10, 1, true);
+        Trade before = buy("NVDA", "2024-06-07", 5, "1200");
+        Trade onExDate = buy("NVDA", "2024-06-10", 50, "120");
+        Trade otherSymbol = buy("AMD", "2024-06-07", 5, "160");
+
+        service.restate(List.of(before, onExDate, otherSymbol));
+
+        assertThat(before.getQuantity()).isEqualByComparingTo("50");
+        assertThat(before.getMatchedQtyLeft()).isEqualByComparingTo("50");
+        assertThat(before.getPrice()).isEqualByComparingTo("120");
+        assertThat(onExDate.getQuantity()).isEqualByComparingTo("50");
+        assertThat(onExDate.getPrice()).isEqualByComparingTo("120");
+        assertThat(otherSymbol.getQuantity()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void reverseSplitsAndOptionsAreRestatedCorrectly() {
+        split("XYZ", "2024-03-01", 1, 3, true);
+        Trade before = buy("XYZ", "2024-02-01", 300, "2");
+        OptionTrade option = new OptionTrade();
+        option.setSymbol("XYZ");
+        option.setAction(ActionType.BUY);
+        option.setTradeDate(LocalDateTime.of(2024, 2, 1, 10, 0));
+        option.setQuantity(BigDecimal.valueOf(100));
+        option.setPrice(new BigDecimal("0.50"));
+
+        service.restate(List.of(before, option));
+
+        assertThat(before.getQuantity()).isEqualByComparingTo("100");
+        assertThat(before.getPrice()).isEqualByComparingTo("6");
+        assertThat(option.getQuantity()).isEqualByComparingTo("100");
+        assertThat(option.getPrice()).isEqualByComparingTo("0.50");
+    }
+
+    @Test
+    void renamesChainIntoLaterActionsOnTheNewSymbol() {
+        rename("FB", "META", "2022-06-09", true);
+        split("META", "2024-06-10", 2, 1, true);
+        Trade old = buy("FB", "2021-05-03", 10, "320");
+
+        service.restate(List.of(old));
+
+        assertThat(old.getSymbol()).isEqualTo("META");
+        assertThat(old.getQuantity()).isEqualByComparingTo("20");
+        assertThat(old.getPrice()).isEqualByComparingTo("160");
+    }
+
+    @Test
+    void pendingActionsDoNotRestateImports() {
+        split("NVDA", "2024-06-10", 10, 1, false);
+        Trade before = buy("NVDA", "2024-06-07", 5, "1200");
+
+        service.restate(List.of(before));
+
+        assertThat(before.getQuantity()).isEqualByComparingTo("5");
+        assertThat(before.getPrice()).isEqualByComparingTo("1200");
+    }
+}
@@ -0,0 +1,163 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.EquityCurveDTO;
+import com.simplytrack.strack_trade_service.DTO.PositionChangeDTO;
+import com.simplytrack.strack_trade_service.DTO.RealizedGainDTO;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Series combined across instruments and downsampled, over mocked trade and match streams. */
+class EquityCurveServiceTests {
+
+    private static final String USER = "alice";
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+
+    private final List<PositionChangeDTO> trades = new ArrayList<>();
+    private final List<RealizedGainDTO> gains = new ArrayList<>();
+
+    private final TradeRepository tradeRepository = mock(TradeRepository.class);
+    private final MatchedTradeRepository matchRepository = mock(MatchedTradeRepository.class);
+    private final EquityCurveService service = new EquityCurveService(tradeRepository, matchRepository,
+            mock(PlatformTransactionManager.class), 10, true);
+
+    @BeforeEach
+    void streamTheSeededRows() {
+        when(tradeRepository.streamPositionChanges(eq(USER), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            return trades.stream().filter(trade -> !trade.tradeDate().isBefore(from));
+        });
+        when(matchRepository.streamRealizedGains(eq(USER), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            return gains.stream().filter(gain -> !gain.dateSold().isBefore(from));
+        });
+    }
+
+    /** the {@code from} of every trade stream opened, in order */
+    private List<LocalDateTime> reads(int expected) {
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(tradeRepository, times(expected)).streamPositionChanges(eq(USER), from.capture());
+        return from.getAllValues();
+    }
+
+    private static LocalDate day(int dayOfYear) {
+        return JAN_1.plusDays(dayOfYear - 1);
+    }
+
+    private void trade(String symbol, int dayOfYear, ActionType action, int quantity) {
+        trades.add(new PositionChangeDTO("Main", symbol, "STOCK", day(dayOfYear).atTime(10, 0), action,
+                BigDecimal.valueOf(quantity)));
+    }
+
+    private void gain(String symbol, int dayOfYear, String amount) {
+        gains.add(new RealizedGainDTO("Main", symbol, "STOCK", day(dayOfYear).atTime(10, 0),
+                new BigDecimal(amount), BigDecimal.ZERO));
+    }
+
+    private void seedTwoSymbols() {
+        trade("AAPL", 2, ActionType.BUY, 10);
+        trade("MSFT", 3, ActionType.BUY, 4);
+        gain("MSFT", 5, "50");
+        trade("MSFT", 5, ActionType.SELL, 4);
+        gain("AAPL", 10, "100");
+        trade("AAPL", 10, ActionType.SELL, 5);
+    }
+
+    private EquityCurveDTO curve(String portfolio, String symbol, String tradeType, LocalDate from, LocalDate to,
+            int maxPoints) {
+        return service.curve(USER, portfolio, symbol, tradeType, from, to, maxPoints);
+    }
+
+    @Test
+    void seriesAreSummedOnEveryDayAnyOfThemChanges() {
+        seedTwoSymbols();
+
+        EquityCurveDTO all = curve(null, null, null, null, day(31), 0);
+
+        assertThat(all.dates()).containsExactly(day(2), day(3), day(5), day(10));
+        assertThat(all.realized()).containsExactly(0.0, 0.0, 50.0, 150.0);
+        // shares of AAPL plus shares of MSFT is not a position
+        assertThat(all.position()).isNull();
+    }
+
+    @Test
+    void oneInstrumentHasItsPosition() {
+        seedTwoSymbols();
+
+        EquityCurveDTO aapl = curve("Main", "AAPL", "STOCK", null, day(31), 0);
+
+        assertThat(aapl.dates()).containsExactly(day(2), day(10));
+        assertThat(aapl.realized()).containsExactly(0.0, 100.0);
+        assertThat(aapl.position()).containsExactly(10.0, 5.0);
+    }
+
+    @Test
+    void theRangeStartCarriesTheTotalsFromBeforeIt() {
+        seedTwoSymbols();
+
+        EquityCurveDTO range = curve(null, null, null, day(6), day(9), 0);
+        assertThat(range.dates()).containsExactly(day(6));
+        assertThat(range.realized()).containsExactly(50.0);
+
+        EquityCurveDTO aapl = curve("Main", "AAPL", "STOCK", day(6), day(31), 0);
+        assertThat(aapl.dates()).containsExactly(day(6), day(10));
+        assertThat(aapl.position()).containsExactly(10.0, 5.0);
+    }
+
+    @Test
+    void downsamplingKeepsTheFirstAndTheLastPoint() {
+        for (int d = 1; d <= 10; d++) {
+            gain("AAPL", d, "10");
+        }
+
+        EquityCurveDTO three = curve(null, null, null, null, day(31), 3);
+        // buckets of 4: the first point, the end of the second bucket, the last point
+        assertThat(three.dates()).containsExactly(day(1), day(8), day(10));
+        assertThat(three.realized()).containsExactly(10.0, 80.0, 100.0);
+
+        EquityCurveDTO one = curve(null, null, null, null, day(31), 1);
+        assertThat(one.dates()).containsExactly(day(10));
+        assertThat(one.realized()[0]).isCloseTo(100.0, within(1e-9));
+    }
+
+    @Test
+    void aTradeWriteRereadsFromItsDateAndTheRematchFromTheWashSaleWindow() {
+        seedTwoSymbols();
+        curve(null, null, null, null, day(120), 0);
+
+        trade("AAPL", 91, ActionType.BUY, 1);
+        service.invalidateFrom(USER, day(91).atTime(10, 0));
+        EquityCurveDTO afterWrite = curve("Main", "AAPL", "STOCK", null, day(120), 0);
+
+        assertThat(reads(2).get(1)).isEqualTo(day(91).atStartOfDay());
+        assertThat(afterWrite.position()).containsExactly(10.0, 5.0, 6.0);
+
+        // the match run may disallow a loss sold up to 30 days before the purchase
+        gain("AAPL", 70, "-20");
+        service.matchesRebuilt(USER);
+        EquityCurveDTO afterMatch = curve("Main", "AAPL", "STOCK", null, day(120), 0);
+
+        assertThat(reads(3).get(2)).isEqualTo(day(61).atStartOfDay());
+        assertThat(afterMatch.dates()).containsExactly(day(2), day(10), day(70), day(91));
+        assertThat(afterMatch.realized()).containsExactly(0.0, 100.0, 80.0, 80.0);
+    }
+}
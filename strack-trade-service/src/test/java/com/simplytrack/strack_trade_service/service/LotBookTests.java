@@ -0,0 +1,115 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.LotRelief;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LotBookTests {
+
+    private static long nextId = 1;
+
+    private static Trade lot(ActionType action, String date, String price) {
+        StockTrade lot = new StockTrade();
+        lot.setId(nextId++);
+        lot.setAction(action);
+        lot.setTradeDate(LocalDate.parse(date).atStartOfDay());
+        lot.setPrice(new BigDecimal(price));
+        lot.setQuantity(BigDecimal.TEN);
+        lot.setMatchedQtyLeft(BigDecimal.TEN);
+        return lot;
+    }
+
+    private static Trade closing(Long reliefLotId) {
+        StockTrade closing = new StockTrade();
+        closing.setAction(ActionType.SELL);
+        closing.setReliefLotId(reliefLotId);
+        return closing;
+    }
+
+    private static LotBook book(LotRelief relief, boolean shortSide, Trade... lots) {
+        LotBook book = LotBook.create(relief, shortSide);
+        for (Trade lot : lots) {
+            book.add(lot);
+        }
+        return book;
+    }
+
+    @Test
+    void fifoTakesTheOldestLot() {
+        Trade oldest = lot(ActionType.BUY, "2024-01-02", "10");
+        Trade middle = lot(ActionType.BUY, "2024-02-01", "30");
+        Trade newest = lot(ActionType.BUY, "2024-03-01", "20");
+
+        assertThat(book(LotRelief.FIFO, false, oldest, middle, newest).next(closing(null))).isSameAs(oldest);
+    }
+
+    @Test
+    void lifoTakesTheNewestLot() {
+        Trade oldest = lot(ActionType.BUY, "2024-01-02", "10");
+        Trade newest = lot(ActionType.BUY, "2024-03-01", "20");
+
+        assertThat(book(LotRelief.LIFO, false, oldest, newest).next(closing(null))).isSameAs(newest);
+    }
+
+    @Test
+    void hifoTakesTheHighestCostAndOldestOnTies() {
+        Trade cheap = lot(ActionType.BUY, "2024-01-02", "10");
+        Trade dearOld = lot(ActionType.BUY, "2024-02-01", "30");
+        Trade dearNew = lot(ActionType.BUY, "2024-03-01", "30");
+
+        LotBook book = book(LotRelief.HIFO, false, dearNew, cheap, dearOld);
+
+        assertThat(book.next(closing(null))).isSameAs(dearOld);
+        dearOld.setMatchedQtyLeft(BigDecimal.ZERO);
+        assertThat(book.next(closing(null))).isSameAs(dearNew);
+        dearNew.setMatchedQtyLeft(BigDecimal.ZERO);
+        assertThat(book.next(closing(null))).isSameAs(cheap);
+    }
+
+    @Test
+    void hifoOnShortsTakesTheLowestShortPrice() {
+        Trade low = lot(ActionType.SHORT, "2024-01-02", "20");
+        Trade high = lot(ActionType.SHORT, "2024-02-01", "30");
+
+        assertThat(book(LotRelief.HIFO, true, high, low).next(closing(null))).isSameAs(low);
+    }
+
+    @Test
+    void relievedLotsAreDroppedLazily() {
+        Trade first = lot(ActionType.BUY, "2024-01-02", "10");
+        Trade second = lot(ActionType.BUY, "2024-02-01", "20");
+        Trade third = lot(ActionType.BUY, "2024-03-01", "30");
+        LotBook fifo = book(LotRelief.FIFO, false, first, second, third);
+        LotBook lifo = book(LotRelief.LIFO, false, first, second, third);
+
+        first.setMatchedQtyLeft(BigDecimal.ZERO);
+        third.setMatchedQtyLeft(BigDecimal.ZERO);
+
+        assertThat(fifo.next(closing(null))).isSameAs(second);
+        assertThat(lifo.next(closing(null))).isSameAs(second);
+        second.setMatchedQtyLeft(BigDecimal.ZERO);
+        assertThat(fifo.next(closing(null))).isNull();
+        assertThat(lifo.next(closing(null))).isNull();
+    }
+
+    @Test
+    void specificIdTakesTheDesignatedLotThenFifo() {
+        Trade first = lot(ActionType.BUY, "2024-01-02", "10");
+        Trade second = lot(ActionType.BUY, "2024-02-01", "20");
+        LotBook book = book(LotRelief.SPECIFIC_ID, false, first, second);
+
+        assertThat(book.next(closing(second.getId()))).isSameAs(second);
+        assertThat(book.next(closing(null))).isSameAs(first);
+        assertThat(book.next(closing(-1L))).isSameAs(first);
+
+        second.setMatchedQtyLeft(BigDecimal.ZERO);
+        assertThat(book.next(closing(second.getId()))).isSameAs(first);
+    }
+}
@@ -0,0 +1,162 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.service.imports.OccSymbolParser;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The expiration job over a book of long, short and flat option positions, with a chunk smaller than the
+ * number of positions so the keyset paging is exercised too.
+ */
+@SpringBootTest(properties = "trades.expiration.chunk-size=2")
+@ActiveProfiles("test")
+class OptionExpirationJobTests {
+
+    private static final String LONG_CALL = "AAPL240119C00150000";
+    private static final String SHORT_PUT = "AAPL240119P00140000";
+    private static final String SPY_PUT = "SPY240119P00470000";
+    private static final String NEXT_MONTH = "AAPL240216C00150000";
+    private static final LocalDateTime EXPIRED_AT = LocalDateTime.of(2024, 1, 19, 16, 0);
+
+    @Autowired
+    private OptionExpirationJob job;
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Autowired
+    private MatchedTradeRepository matchedTradeRepository;
+
+    private OptionTrade longCall;
+    private OptionTrade shortPut;
+    private OptionTrade bobsShortPut;
+
+    @BeforeEach
+    void seedBook() {
+        matchedTradeRepository.deleteAllInBatch();
+        tradeRepository.deleteAllInBatch();
+
+        // alice/Main: long 3 calls, 1 sold before expiry; short 2 puts
+        longCall = option("alice", "Main", LONG_CALL, ActionType.BUY, 300, 200, "2.50", 2);
+        option("alice", "Main", LONG_CALL, ActionType.SELL, 100, 0, "4.00", 10);
+        shortPut = option("alice", "Main", SHORT_PUT, ActionType.SHORT, 200, 200, "1.20", 3);
+        // alice/IRA: the same call, bought and sold, so already flat
+        option("alice", "IRA", LONG_CALL, ActionType.BUY, 100, 0, "2.50", 2);
+        option("alice", "IRA", LONG_CALL, ActionType.SELL, 100, 0, "3.00", 5);
+        // bob: short 1 put
+        bobsShortPut = option("bob", "Main", SPY_PUT, ActionType.SHORT, 100, 100, "3.10", 4);
+        // expires after the window
+        option("bob", "Main", NEXT_MONTH, ActionType.BUY, 100, 100, "5.00", 4);
+    }
+
+    private OptionTrade option(String userId, String portfolio, String usymbol, ActionType action, int quantity,
+            int open, String price, int day) {
+        OptionTrade trade = new OptionTrade();
+        trade.setUsymbol(usymbol);
+        OccSymbolParser.populate(trade);
+        trade.setUserId(userId);
+        trade.setPortfolioName(portfolio);
+        trade.setAction(action);
+        trade.setQuantity(BigDecimal.valueOf(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.valueOf(open));
+        trade.setPrice(new BigDecimal(price));
+        trade.setCommission(BigDecimal.ZERO);
+        trade.setFee(BigDecimal.ZERO);
+        trade.setNetAmount(trade.getPrice().multiply(trade.getQuantity()));
+        trade.setTradeDate(LocalDateTime.of(2024, 1, day, 10, 0));
+        return tradeRepository.save(trade);
+    }
+
+    private long closeJanuaryExpiries() {
+        return job.closeExpired(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 19));
+    }
+
+    private List<OptionTrade> closingTrades(String userId) {
+        return tradeRepository.findOptionTradesByUserId(userId).stream()
+                .filter(trade -> EXPIRED_AT.equals(trade.getTradeDate()))
+                .toList();
+    }
+
+    @Test
+    void longPositionsAreSoldAndShortPositionsCoveredAtZero() {
+        assertThat(closeJanuaryExpiries()).isEqualTo(3);
+
+        Map<String, OptionTrade> alice = closingTrades("alice").stream()
+                .collect(Collectors.toMap(OptionTrade::getUsymbol, trade -> trade));
+        assertThat(alice).hasSize(2);
+        OptionTrade sold = alice.get(LONG_CALL);
+        assertThat(sold.getAction()).isEqualTo(ActionType.SELL);
+        assertThat(sold.getPortfolioName()).isEqualTo("Main");
+        assertThat(sold.getQuantity()).isEqualByComparingTo("200");
+        assertThat(sold.getPrice()).isEqualByComparingTo("0");
+        assertThat(sold.getFingerprint()).isNotNull();
+        OptionTrade covered = alice.get(SHORT_PUT);
+        assertThat(covered.getAction()).isEqualTo(ActionType.COVER);
+        assertThat(covered.getQuantity()).isEqualByComparingTo("200");
+
+        List<OptionTrade> bob = closingTrades("bob");
+        assertThat(bob).hasSize(1);
+        assertThat(bob.get(0).getUsymbol()).isEqualTo(SPY_PUT);
+        assertThat(bob.get(0).getAction()).isEqualTo(ActionType.COVER);
+        assertThat(bob.get(0).getQuantity()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void theClosesAreMatchedAgainstTheOpenLots() {
+        closeJanuaryExpiries();
+
+        List<MatchedTrade> matches = matchedTradeRepository.findAll();
+        assertThat(matches).hasSize(3);
+        MatchedTrade call = matches.stream()
+                .filter(match -> match.getBuyTrade().getId().equals(longCall.getId()))
+                .findFirst().orElseThrow();
+        assertThat(call.getMatchedQuantity()).isEqualByComparingTo("200");
+        assertThat(call.getProceeds()).isEqualByComparingTo("0");
+        assertThat(call.getStGainOrLoss()).isEqualByComparingTo("-500");
+        assertThat(matches.stream().filter(match -> match.getSellTrade().getId().equals(shortPut.getId())))
+                .hasSize(1);
+        assertThat(matches.stream().filter(match -> match.getSellTrade().getId().equals(bobsShortPut.getId())))
+                .hasSize(1);
+
+        assertThat(tradeRepository.findById(longCall.getId()).orElseThrow().getMatchedQtyLeft())
+                .isEqualByComparingTo("0");
+        assertThat(tradeRepository.findById(shortPut.getId()).orElseThrow().getMatchedQtyLeft())
+                .isEqualByComparingTo("0");
+    }
+
+    @Test
+    void flatAndLaterPositionsAreLeftAlone() {
+        closeJanuaryExpiries();
+
+        assertThat(tradeRepository.findOptionTradesByUserId("alice").stream()
+                .filter(trade -> trade.getPortfolioName().equals("IRA"))).hasSize(2);
+        assertThat(tradeRepository.findOptionTradesByUserId("bob").stream()
+                .filter(trade -> trade.getUsymbol().equals(NEXT_MONTH))).hasSize(1);
+    }
+
+    @Test
+    void aSecondRunFindsNothingLeftToClose() {
+        closeJanuaryExpiries();
+        long trades = tradeRepository.count();
+
+        assertThat(closeJanuaryExpiries()).isZero();
+        assertThat(tradeRepository.count()).isEqualTo(trades);
+    }
+}
@@ -0,0 +1,115 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.TaxLotDTO;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Form 8949 CSV rows written from a mocked tax-lot stream. */
+class TaxReportServiceTests {
+
+    private static final String HEADER = "Description,Date Acquired,Date Sold,Proceeds,Cost Basis,Code,"
+            + "Adjustment,Gain or Loss,Term,Type";
+
+    private final List<TaxLotDTO> lots = new ArrayList<>();
+
+    private final MatchedTradeRepository matchRepository = mock(MatchedTradeRepository.class);
+    private final TaxReportService service =
+            new TaxReportService(matchRepository, mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void streamTheSeededLots() {
+        when(matchRepository.streamTaxLots(any(), any(), any(), any())).thenAnswer(invocation -> lots.stream());
+    }
+
+    private void lot(String symbol, String quantity, String acquired, String sold, String proceeds,
+            String costBasis, String st, String lt, String washSale) {
+        lots.add(new TaxLotDTO(symbol, "STOCK", new BigDecimal(quantity), LocalDate.parse(acquired).atTime(10, 0),
+                LocalDate.parse(sold).atTime(15, 30), money(proceeds), money(costBasis), money(st), money(lt),
+                money(washSale)));
+    }
+
+    private static BigDecimal money(String value) {
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private List<String> export(int year, String portfolio) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = service.writeForm8949("alice", year, portfolio, out);
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(csv).endsWith("\r\n");
+        List<String> lines = Arrays.asList(csv.split("\r\n"));
+        assertThat(rows).isEqualTo(lines.size() - 1L);
+        return lines;
+    }
+
+    @Test
+    void rowsFollowTheHeaderInForm8949Columns() {
+        lot("AAPL", "100.00", "2024-01-02", "2024-03-10", "4000", "5000", "-1000", "0", null);
+
+        List<String> lines = export(2024, null);
+
+        assertThat(lines).containsExactly(HEADER,
+                "100 AAPL,01/02/2024,03/10/2024,4000.00,5000.00,,,-1000.00,SHORT,STOCK");
+    }
+
+    @Test
+    void washSalesCarryCodeWAndTheDisallowedLoss() {
+        // the matcher has already netted the disallowed 1000 out of the gain
+        lot("AAPL", "100", "2024-01-02", "2024-03-10", "4000", "5000", "0", "0", "1000");
+        lot("MSFT", "10", "2024-01-02", "2024-03-10", "4000", "3000", "1000", "0", "0");
+
+        List<String> lines = export(2024, null);
+
+        assertThat(lines.get(1)).isEqualTo("100 AAPL,01/02/2024,03/10/2024,4000.00,5000.00,W,1000.00,0.00,SHORT,STOCK");
+        // a zero adjustment is not a wash sale
+        assertThat(lines.get(2)).isEqualTo("10 MSFT,01/02/2024,03/10/2024,4000.00,3000.00,,,1000.00,SHORT,STOCK");
+    }
+
+    @Test
+    void aYearHeldIsLongTerm() {
+        lot("AAPL", "1", "2023-01-03", "2024-01-03", "200", "150", "0", "50", null);
+        lot("AAPL", "1", "2023-01-04", "2024-01-03", "200", "150", "50", "0", null);
+
+        List<String> lines = export(2024, null);
+
+        assertThat(lines.get(1)).endsWith(",50.00,LONG,STOCK");
+        assertThat(lines.get(2)).endsWith(",50.00,SHORT,STOCK");
+    }
+
+    @Test
+    void descriptionsAreQuotedWhenTheyNeedIt() {
+        lot("BRK,B", "0.5000", "2024-01-02", "2024-03-10", "1234.565", "1000", "234.565", "0", null);
+        lot("ODD \"X\"", "3", "2024-01-02", "2024-03-10", null, "10", "-10", null, null);
+
+        List<String> lines = export(2024, null);
+
+        assertThat(lines.get(1)).isEqualTo("\"0.5 BRK,B\",01/02/2024,03/10/2024,1234.57,1000.00,,,234.57,SHORT,STOCK");
+        assertThat(lines.get(2)).isEqualTo("\"3 ODD \"\"X\"\"\",01/02/2024,03/10/2024,0.00,10.00,,,-10.00,SHORT,STOCK");
+    }
+
+    @Test
+    void theTaxYearAndPortfolioSelectTheLots() {
+        List<String> lines = export(2023, "IRA");
+
+        assertThat(lines).containsExactly(HEADER);
+        verify(matchRepository).streamTaxLots("alice", LocalDateTime.of(2023, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 1, 0, 0), "IRA");
+    }
+}
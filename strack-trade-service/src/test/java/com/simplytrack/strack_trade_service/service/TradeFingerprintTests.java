@@ -0,0 +1,100 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeFingerprintTests {
+
+    private static Trade fill(String quantity) {
+        StockTrade trade = new StockTrade();
+        trade.setUserId("alice");
+        trade.setPortfolioName("Main");
+        trade.setSymbol("AAPL");
+        trade.setAction(ActionType.BUY);
+        trade.setQuantity(new BigDecimal(quantity));
+        trade.setPrice(new BigDecimal("150.25"));
+        trade.setTradeDate(LocalDateTime.of(2024, 1, 2, 0, 0));
+        trade.setCommission(BigDecimal.ZERO);
+        return trade;
+    }
+
+    @Test
+    void theSameRowHasTheSameFingerprintInEveryUpload() {
+        Trade trade = fill("10");
+        String first = new TradeFingerprint().assign(trade);
+
+        assertThat(first).hasSize(64);
+        assertThat(trade.getFingerprint()).isEqualTo(first);
+        assertThat(new TradeFingerprint().assign(fill("10"))).isEqualTo(first);
+        // the statement may print 10 or 10.00
+        assertThat(new TradeFingerprint().assign(fill("10.00"))).isEqualTo(first);
+    }
+
+    @Test
+    void repeatedRowsInOneUploadAreNumbered() {
+        TradeFingerprint upload = new TradeFingerprint();
+        String first = upload.assign(fill("10"));
+        String second = upload.assign(fill("10"));
+        String third = upload.assign(fill("10"));
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(third).isNotEqualTo(first);
+        assertThat(third).isNotEqualTo(second);
+
+        // uploading the same statement again numbers the copies the same way
+        TradeFingerprint again = new TradeFingerprint();
+        assertThat(again.assign(fill("10"))).isEqualTo(first);
+        assertThat(again.assign(fill("10"))).isEqualTo(second);
+        assertThat(again.assign(fill("10"))).isEqualTo(third);
+    }
+
+    @Test
+    void anyDifferingFieldChangesTheFingerprint() {
+        String base = new TradeFingerprint().assign(fill("10"));
+
+        Trade otherPortfolio = fill("10");
+        otherPortfolio.setPortfolioName("IRA");
+        Trade otherUser = fill("10");
+        otherUser.setUserId("bob");
+        Trade otherCommission = fill("10");
+        otherCommission.setCommission(new BigDecimal("0.65"));
+
+        assertThat(new TradeFingerprint().assign(fill("11"))).isNotEqualTo(base);
+        assertThat(new TradeFingerprint().assign(otherPortfolio)).isNotEqualTo(base);
+        assertThat(new TradeFingerprint().assign(otherUser)).isNotEqualTo(base);
+        assertThat(new TradeFingerprint().assign(otherCommission)).isNotEqualTo(base);
+    }
+
+    @Test
+    void optionsAreIdentifiedByTheirContract() {
+        OptionTrade call = new OptionTrade();
+        call.setUserId("alice");
+        call.setPortfolioName("Main");
+        call.setSymbol("AAPL");
+        call.setUsymbol("AAPL240119C00150000");
+        call.setAction(ActionType.BUY);
+        call.setQuantity(new BigDecimal("100"));
+        call.setPrice(new BigDecimal("3.5"));
+        call.setTradeDate(LocalDateTime.of(2024, 1, 2, 0, 0));
+        OptionTrade put = new OptionTrade();
+        put.setUserId("alice");
+        put.setPortfolioName("Main");
+        put.setSymbol("AAPL");
+        put.setUsymbol("AAPL240119P00150000");
+        put.setAction(ActionType.BUY);
+        put.setQuantity(new BigDecimal("100"));
+        put.setPrice(new BigDecimal("3.5"));
+        put.setTradeDate(LocalDateTime.of(2024, 1, 2, 0, 0));
+
+        TradeFingerprint upload = new TradeFingerprint();
+        assertThat(upload.assign(call)).isNotEqualTo(upload.assign(put));
+    }
+}
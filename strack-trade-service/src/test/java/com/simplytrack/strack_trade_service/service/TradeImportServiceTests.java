@@ -0,0 +1,158 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.ImportResultDTO;
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.repository.MatchedTradeRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Re-import de-duplication against the unique fingerprint column, through TradeBatchWriter's SQL on H2
+ * (test profile). The chunk is smaller than the files, so duplicates are counted across chunks.
+ */
+@SpringBootTest(properties = "trades.import.chunk-size=2")
+@ActiveProfiles("test")
+class TradeImportServiceTests {
+
+    private static final String USER = "alice";
+    private static final String HEADER = "Date,Action,Symbol,Quantity,Price\n";
+    private static final String JAN_2 = "1/2/2024,BUY,AAPL,10,150\n";
+    // a second, identical fill on the same day
+    private static final String JAN_2_AGAIN = JAN_2;
+    private static final String JAN_3 = "1/3/2024,SELL,AAPL,5,155\n";
+    private static final String JAN_4 = "1/4/2024,BUY,MSFT,3,370\n";
+    private static final String JAN_5_CALL = "1/5/2024,BUY,AAPL240119C00150000,2,3.50\n";
+
+    @Autowired
+    private TradeImportService importService;
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Autowired
+    private MatchedTradeRepository matchedTradeRepository;
+
+    @BeforeEach
+    void emptyTheBook() {
+        matchedTradeRepository.deleteAllInBatch();
+        tradeRepository.deleteAllInBatch();
+    }
+
+    private ImportResultDTO upload(String csv) throws IOException {
+        return importService.importTrades(USER, "Main", "statement.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private List<Trade> stored() {
+        return tradeRepository.findByUserId(USER).stream()
+                .sorted(Comparator.comparing(Trade::getTradeDate).thenComparing(Trade::getId))
+                .toList();
+    }
+
+    private static StockTrade posted(ActionType action, int day, int quantity) {
+        StockTrade trade = new StockTrade();
+        trade.setUserId(USER);
+        trade.setPortfolioName("Main");
+        trade.setSymbol("AAPL");
+        trade.setAction(action);
+        trade.setTradeDate(LocalDateTime.of(2024, 1, day, 0, 0));
+        trade.setQuantity(BigDecimal.valueOf(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.valueOf(quantity));
+        trade.setPrice(new BigDecimal("150"));
+        return trade;
+    }
+
+    @Test
+    void identicalFillsInOneFileAreBothImported() throws IOException {
+        ImportResultDTO result = upload(HEADER + JAN_2 + JAN_2_AGAIN + JAN_3);
+
+        assertThat(result.imported()).isEqualTo(3);
+        assertThat(result.duplicates()).isZero();
+        List<Trade> stored = stored();
+        assertThat(stored).hasSize(3);
+        assertThat(stored.get(0)).isInstanceOf(StockTrade.class);
+        assertThat(stored.get(0).getPortfolioName()).isEqualTo("Main");
+        assertThat(stored.get(0).getSymbol()).isEqualTo("AAPL");
+        assertThat(stored.get(0).getAction()).isEqualTo(ActionType.BUY);
+        assertThat(stored.get(0).getQuantity()).isEqualByComparingTo("10");
+        assertThat(stored.get(0).getPrice()).isEqualByComparingTo("150");
+        assertThat(stored.get(0).getFingerprint()).isNotEqualTo(stored.get(1).getFingerprint());
+    }
+
+    @Test
+    void optionRowsAreStoredWithTheirContract() throws IOException {
+        assertThat(upload(HEADER + JAN_5_CALL).imported()).isEqualTo(1);
+
+        OptionTrade call = tradeRepository.findOptionTradesByUserId(USER).get(0);
+        assertThat(call.getUsymbol()).isEqualTo("AAPL240119C00150000");
+        assertThat(call.getOptionType()).isEqualTo("CALL");
+        assertThat(call.getStrikePrice()).isEqualTo(150.0);
+        assertThat(call.getExpirationDate()).isEqualTo(LocalDateTime.of(2024, 1, 19, 0, 0));
+        assertThat(call.getQuantity()).isEqualByComparingTo("200");
+    }
+
+    @Test
+    void uploadingTheSameFileAgainImportsNothing() throws IOException {
+        upload(HEADER + JAN_2 + JAN_2_AGAIN + JAN_3);
+
+        ImportResultDTO again = upload(HEADER + JAN_2 + JAN_2_AGAIN + JAN_3);
+
+        assertThat(again.imported()).isZero();
+        assertThat(again.duplicates()).isEqualTo(3);
+        assertThat(stored()).hasSize(3);
+    }
+
+    @Test
+    void anOverlappingStatementImportsOnlyTheNewRows() throws IOException {
+        upload(HEADER + JAN_2 + JAN_3);
+
+        // the later statement has the second Jan 2 fill that the first one was cut off before; each of its
+        // two chunks has one stored row and one new one
+        ImportResultDTO overlap = upload(HEADER + JAN_2 + JAN_2_AGAIN + JAN_3 + JAN_4);
+
+        assertThat(overlap.imported()).isEqualTo(2);
+        assertThat(overlap.duplicates()).isEqualTo(2);
+        assertThat(stored()).extracting(Trade::getSymbol).containsExactly("AAPL", "AAPL", "AAPL", "MSFT");
+    }
+
+    @Test
+    void batchesPostedTwiceAreDeDuplicatedToo() {
+        ImportResultDTO first = importService.saveBatch(List.of(posted(ActionType.BUY, 2, 10),
+                posted(ActionType.BUY, 2, 10), posted(ActionType.SELL, 3, 5)));
+        ImportResultDTO again = importService.saveBatch(List.of(posted(ActionType.BUY, 2, 10),
+                posted(ActionType.BUY, 2, 10), posted(ActionType.SELL, 3, 5)));
+
+        assertThat(first.imported()).isEqualTo(3);
+        assertThat(again.imported()).isZero();
+        assertThat(again.duplicates()).isEqualTo(3);
+        assertThat(stored()).hasSize(3);
+    }
+
+    @Test
+    void rejectedRowsAreReportedAndDoNotStopTheImport() throws IOException {
+        ImportResultDTO result = upload(HEADER + JAN_2 + "1/2/2024,TRANSFER,AAPL,10,150\n" + JAN_3);
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.errors()).containsExactly(
+                new ImportResultDTO.RowError(3, "Unknown action \"TRANSFER\""));
+        assertThat(stored()).hasSize(2);
+    }
+}
@@ -0,0 +1,132 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.LotRelief;
+import com.simplytrack.strack_trade_service.types.TradeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Lot relief in relieveLots(); the repositories are not touched there. */
+class TradeMatchingServiceTests {
+
+    private final TradeMatchingService matcher = new TradeMatchingService(null, null, null,
+            new SimpleMeterRegistry(), ObservationRegistry.NOOP, 0, false);
+
+    private long nextId = 1;
+
+    private Trade trade(ActionType action, String date, int quantity, String price) {
+        StockTrade trade = new StockTrade();
+        trade.setId(nextId++);
+        trade.setTradeType(TradeType.STOCK);
+        trade.setSymbol("AAPL");
+        trade.setAction(action);
+        trade.setTradeDate(LocalDate.parse(date).atTime(10, 0));
+        trade.setQuantity(BigDecimal.valueOf(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.valueOf(quantity));
+        trade.setPrice(new BigDecimal(price));
+        trade.setCommission(BigDecimal.ZERO);
+        return trade;
+    }
+
+    private List<MatchedTrade> relieve(LotRelief relief, List<Trade> openings, List<Trade> closings) {
+        return matcher.relieveLots(new ArrayList<>(openings), new ArrayList<>(closings), TradeType.STOCK, relief);
+    }
+
+    /** (lot price, matched quantity) per match, in match order. */
+    private static List<String> relieved(List<MatchedTrade> matches, boolean shortSide) {
+        return matches.stream()
+                .map(m -> (shortSide ? m.getSellTrade() : m.getBuyTrade()).getPrice().toPlainString()
+                        + "x" + m.getMatchedQuantity().toPlainString())
+                .toList();
+    }
+
+    @Test
+    void fifoRelievesTheOldestLotsFirst() {
+        Trade first = trade(ActionType.BUY, "2024-01-02", 100, "10");
+        Trade second = trade(ActionType.BUY, "2024-02-01", 100, "20");
+        Trade sale = trade(ActionType.SELL, "2024-03-01", 150, "25");
+
+        List<MatchedTrade> matches = relieve(LotRelief.FIFO, List.of(second, first), List.of(sale));
+
+        assertThat(relieved(matches, false)).containsExactly("10x100", "20x50");
+        assertThat(second.getMatchedQtyLeft()).isEqualByComparingTo("50");
+        assertThat(sale.getMatchedQtyLeft()).isEqualByComparingTo("0");
+        assertThat(matches.get(0).getCostBasis()).isEqualByComparingTo("1000");
+        assertThat(matches.get(0).getProceeds()).isEqualByComparingTo("2500");
+    }
+
+    @Test
+    void lifoRelievesTheNewestLotsFirst() {
+        Trade first = trade(ActionType.BUY, "2024-01-02", 100, "10");
+        Trade second = trade(ActionType.BUY, "2024-02-01", 100, "20");
+        Trade sale = trade(ActionType.SELL, "2024-03-01", 150, "25");
+
+        assertThat(relieved(relieve(LotRelief.LIFO, List.of(first, second), List.of(sale)), false))
+                .containsExactly("20x100", "10x50");
+        assertThat(first.getMatchedQtyLeft()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    void hifoRelievesTheHighestCostFirst() {
+        Trade cheap = trade(ActionType.BUY, "2024-01-02", 100, "10");
+        Trade dear = trade(ActionType.BUY, "2024-02-01", 100, "30");
+        Trade middle = trade(ActionType.BUY, "2024-03-01", 100, "20");
+        Trade sale = trade(ActionType.SELL, "2024-04-01", 150, "25");
+
+        assertThat(relieved(relieve(LotRelief.HIFO, List.of(cheap, dear, middle), List.of(sale)), false))
+                .containsExactly("30x100", "20x50");
+    }
+
+    @Test
+    void hifoCoversTheLowestShortFirst() {
+        Trade high = trade(ActionType.SHORT, "2024-01-02", 100, "30");
+        Trade low = trade(ActionType.SHORT, "2024-02-01", 100, "20");
+        Trade cover = trade(ActionType.COVER, "2024-03-01", 100, "15");
+
+        assertThat(relieved(relieve(LotRelief.HIFO, List.of(high, low), List.of(cover)), true))
+                .containsExactly("20x100");
+    }
+
+    @Test
+    void specificIdRelievesTheDesignatedLotThenFifo() {
+        Trade first = trade(ActionType.BUY, "2024-01-02", 100, "10");
+        Trade second = trade(ActionType.BUY, "2024-02-01", 100, "20");
+        Trade sale = trade(ActionType.SELL, "2024-03-01", 150, "25");
+        sale.setReliefLotId(second.getId());
+
+        assertThat(relieved(relieve(LotRelief.SPECIFIC_ID, List.of(first, second), List.of(sale)), false))
+                .containsExactly("20x100", "10x50");
+    }
+
+    @Test
+    void onlyLotsOpenedBeforeTheSaleAreRelieved() {
+        Trade first = trade(ActionType.BUY, "2024-01-02", 100, "10");
+        Trade sale = trade(ActionType.SELL, "2024-02-01", 50, "25");
+        Trade later = trade(ActionType.BUY, "2024-03-01", 100, "20");
+
+        assertThat(relieved(relieve(LotRelief.LIFO, List.of(first, later), List.of(sale)), false))
+                .containsExactly("10x50");
+        assertThat(later.getMatchedQtyLeft()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void saleWithoutAnOpenLotWaitsForTheNextOne() {
+        Trade sale = trade(ActionType.SELL, "2024-01-02", 50, "25");
+        Trade lot = trade(ActionType.BUY, "2024-02-01", 100, "10");
+
+        assertThat(relieved(relieve(LotRelief.FIFO, List.of(lot), List.of(sale)), false))
+                .containsExactly("10x50");
+        assertThat(lot.getMatchedQtyLeft()).isEqualByComparingTo("50");
+    }
+}
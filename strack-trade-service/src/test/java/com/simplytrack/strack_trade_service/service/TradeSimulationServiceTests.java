@@ -0,0 +1,179 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.DTO.SimulationResultDTO;
+import com.simplytrack.strack_trade_service.entity.PortfolioSettings;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.repository.PortfolioSettingsRepository;
+import com.simplytrack.strack_trade_service.repository.TradeRepository;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.LotRelief;
+import com.simplytrack.strack_trade_service.types.TradeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** What-if matching over a cached snapshot of the open lots; the repositories are mocks. */
+class TradeSimulationServiceTests {
+
+    private static final String USER = "alice";
+
+    private final List<Trade> openLots = new ArrayList<>();
+    private final List<PortfolioSettings> settings = new ArrayList<>();
+    private long nextId = 1;
+
+    private final TradeRepository tradeRepository = mock(TradeRepository.class);
+    private final PortfolioSettingsRepository settingsRepository = mock(PortfolioSettingsRepository.class);
+    private final TradeSimulationService simulation = new TradeSimulationService(tradeRepository,
+            settingsRepository, new TradeMatchingService(null, null, null, new SimpleMeterRegistry(),
+                    ObservationRegistry.NOOP, 0, false),
+            Duration.ofMinutes(5), 10);
+
+    @BeforeEach
+    void serveTheSeededLots() {
+        // answers rather than values, so lots added later in a test are seen by the next load
+        when(tradeRepository.findUnmatchedByUserId(USER)).thenAnswer(invocation -> new ArrayList<>(openLots));
+        when(settingsRepository.findByUserId(USER)).thenAnswer(invocation -> new ArrayList<>(settings));
+    }
+
+    private Trade lot(String date, int quantity, int open, String price) {
+        StockTrade trade = new StockTrade();
+        trade.setId(nextId++);
+        trade.setTradeType(TradeType.STOCK);
+        trade.setUserId(USER);
+        trade.setPortfolioName("Main");
+        trade.setSymbol("AAPL");
+        trade.setAction(ActionType.BUY);
+        trade.setTradeDate(LocalDate.parse(date).atTime(10, 0));
+        trade.setQuantity(BigDecimal.valueOf(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.valueOf(open));
+        trade.setPrice(new BigDecimal(price));
+        trade.setCommission(BigDecimal.ZERO);
+        openLots.add(trade);
+        return trade;
+    }
+
+    private static List<Trade> sell(int quantity, String price) {
+        StockTrade sale = new StockTrade();
+        sale.setPortfolioName("Main");
+        sale.setSymbol("AAPL");
+        sale.setAction(ActionType.SELL);
+        sale.setQuantity(BigDecimal.valueOf(quantity));
+        sale.setPrice(new BigDecimal(price));
+        sale.setTradeDate(LocalDate.of(2024, 6, 3).atTime(15, 0));
+        List<Trade> trades = new ArrayList<>();
+        trades.add(sale);
+        return trades;
+    }
+
+    @Test
+    void simulatingDoesNotConsumeTheSnapshot() {
+        Trade first = lot("2024-01-02", 100, 60, "50");
+        lot("2024-02-01", 100, 100, "55");
+
+        SimulationResultDTO once = simulation.simulate(USER, sell(120, "60"));
+        SimulationResultDTO again = simulation.simulate(USER, sell(120, "60"));
+
+        assertThat(once.matches()).hasSize(2);
+        assertThat(once.matches().get(0).getBuyTradeId()).isEqualTo(first.getId());
+        assertThat(once.matches().get(0).getMatchedQuantity()).isEqualByComparingTo("60");
+        assertThat(once.matches().get(1).getMatchedQuantity()).isEqualByComparingTo("60");
+        // 60 * (60 - 50) + 60 * (60 - 55)
+        assertThat(once.stGainOrLoss()).isEqualByComparingTo("900");
+        assertThat(again.matches()).hasSize(2);
+        assertThat(again.stGainOrLoss()).isEqualByComparingTo("900");
+        assertThat(again.unmatchedQuantity()).isEqualByComparingTo("0");
+        verify(tradeRepository, times(1)).findUnmatchedByUserId(USER);
+    }
+
+    @Test
+    void theStoredTradesAreNeverTouched() {
+        Trade first = lot("2024-01-02", 100, 60, "50");
+        Trade second = lot("2024-02-01", 100, 100, "55");
+
+        simulation.simulate(USER, sell(500, "60"));
+
+        assertThat(first.getMatchedQtyLeft()).isEqualByComparingTo("60");
+        assertThat(second.getMatchedQtyLeft()).isEqualByComparingTo("100");
+        assertThat(first.getUserId()).isEqualTo(USER);
+        assertThat(first.getPortfolioName()).isEqualTo("Main");
+    }
+
+    @Test
+    void closingQuantityBeyondTheLotsIsReportedUnmatched() {
+        lot("2024-01-02", 100, 100, "50");
+
+        SimulationResultDTO result = simulation.simulate(USER, sell(150, "40"));
+
+        assertThat(result.matches()).hasSize(1);
+        assertThat(result.stGainOrLoss()).isEqualByComparingTo("-1000");
+        assertThat(result.unmatchedQuantity()).isEqualByComparingTo("50");
+    }
+
+    @Test
+    void thePortfolioLotReliefIsUsed() {
+        lot("2024-01-02", 100, 100, "50");
+        Trade newest = lot("2024-02-01", 100, 100, "55");
+        PortfolioSettings lifo = new PortfolioSettings();
+        lifo.setUserId(USER);
+        lifo.setPortfolioName("Main");
+        lifo.setLotRelief(LotRelief.LIFO);
+        settings.add(lifo);
+
+        SimulationResultDTO result = simulation.simulate(USER, sell(100, "60"));
+
+        assertThat(result.matches()).hasSize(1);
+        assertThat(result.matches().get(0).getBuyTradeId()).isEqualTo(newest.getId());
+    }
+
+    @Test
+    void evictReloadsTheLots() {
+        lot("2024-01-02", 100, 100, "50");
+        simulation.simulate(USER, sell(100, "60"));
+
+        lot("2024-02-01", 100, 100, "55");
+        assertThat(simulation.simulate(USER, sell(200, "60")).unmatchedQuantity()).isEqualByComparingTo("100");
+
+        simulation.evict(USER);
+        assertThat(simulation.simulate(USER, sell(200, "60")).unmatchedQuantity()).isEqualByComparingTo("0");
+        verify(tradeRepository, times(2)).findUnmatchedByUserId(USER);
+    }
+
+    @Test
+    void evictAllReloadsEveryUsersLots() {
+        lot("2024-01-02", 100, 100, "50");
+        simulation.simulate(USER, sell(100, "60"));
+        simulation.simulate("bob", sell(100, "60"));
+
+        simulation.evictAll();
+        simulation.simulate(USER, sell(100, "60"));
+        simulation.simulate("bob", sell(100, "60"));
+
+        verify(tradeRepository, times(2)).findUnmatchedByUserId(USER);
+        verify(tradeRepository, times(2)).findUnmatchedByUserId("bob");
+    }
+
+    @Test
+    void incompleteTradesAreRejected() {
+        List<Trade> trades = sell(100, "60");
+        trades.get(0).setPrice(null);
+
+        assertThatThrownBy(() -> simulation.simulate(USER, trades))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Trade 1: portfolioName, action, a positive quantity and price are required");
+    }
+}
@@ -0,0 +1,167 @@
+package com.simplytrack.strack_trade_service.service;
+
+import com.simplytrack.strack_trade_service.entity.MatchedTrade;
+import com.simplytrack.strack_trade_service.entity.StockMatch;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import com.simplytrack.strack_trade_service.types.TradeType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Wash sales over hand-built matches; the matcher's lot relief is not involved. */
+class WashSaleDetectorTests {
+
+    private final List<Trade> trades = new ArrayList<>();
+    private final List<MatchedTrade> matches = new ArrayList<>();
+
+    private Trade trade(ActionType action, String date, int quantity, String price) {
+        StockTrade trade = new StockTrade();
+        trade.setTradeType(TradeType.STOCK);
+        trade.setSymbol("AAPL");
+        trade.setAction(action);
+        trade.setTradeDate(LocalDate.parse(date).atTime(10, 0));
+        trade.setQuantity(BigDecimal.valueOf(quantity));
+        trade.setMatchedQtyLeft(BigDecimal.valueOf(quantity));
+        trade.setPrice(new BigDecimal(price));
+        trades.add(trade);
+        return trade;
+    }
+
+    private Trade buy(String date, int quantity, String price) {
+        return trade(ActionType.BUY, date, quantity, price);
+    }
+
+    private MatchedTrade sell(Trade lot, String date, int quantity, String price) {
+        Trade sale = trade(ActionType.SELL, date, quantity, price);
+        BigDecimal shares = BigDecimal.valueOf(quantity);
+        StockMatch match = new StockMatch();
+        match.setBuyTrade(lot);
+        match.setSellTrade(sale);
+        match.setMatchedQuantity(shares);
+        match.setDateAcquired(lot.getTradeDate());
+        match.setDateSold(sale.getTradeDate());
+        match.setProceeds(sale.getPrice().multiply(shares));
+        match.setCostBasis(lot.getPrice().multiply(shares));
+        lot.setMatchedQtyLeft(lot.getMatchedQtyLeft().subtract(shares));
+        sale.setMatchedQtyLeft(BigDecimal.ZERO);
+        matches.add(match);
+        return match;
+    }
+
+    private void detect() {
+        new WashSaleDetector().apply(trades, matches, Trade::getSymbol);
+    }
+
+    @Test
+    void replacementBoughtBeforeTheSaleDisallowsTheLoss() {
+        Trade first = buy("2024-01-02", 100, "50");
+        Trade replacement = buy("2024-03-01", 100, "40");
+        MatchedTrade loss = sell(first, "2024-03-10", 100, "40");
+
+        detect();
+
+        assertThat(loss.getWashSaleDisallowed()).isEqualByComparingTo("1000");
+        assertThat(loss.getStGainOrLoss()).isEqualByComparingTo("0");
+        assertThat(replacement.getBasisAdjustment()).isEqualByComparingTo("1000");
+    }
+
+    @Test
+    void replacementBoughtAfterTheSaleCarriesBasisAndHoldingPeriod() {
+        Trade first = buy("2024-01-02", 100, "50");
+        MatchedTrade loss = sell(first, "2024-03-10", 100, "40");
+        Trade replacement = buy("2024-03-20", 100, "40");
+        MatchedTrade later = sell(replacement, "2024-06-03", 100, "45");
+
+        detect();
+
+        assertThat(loss.getWashSaleDisallowed()).isEqualByComparingTo("1000");
+        // basis 4000 + 1000 carried, acquired 68 days (first lot's holding period) before 2024-03-20
+        assertThat(later.getCostBasis()).isEqualByComparingTo("5000");
+        assertThat(later.getDateAcquired()).isEqualTo(LocalDateTime.of(2024, 1, 12, 10, 0));
+        assertThat(later.getStGainOrLoss()).isEqualByComparingTo("-500");
+        assertThat(later.getWashSaleDisallowed()).isNull();
+        assertThat(replacement.getBasisAdjustment()).isNull();
+    }
+
+    @Test
+    void partialReplacementDisallowsOnlyThoseShares() {
+        Trade first = buy("2024-01-02", 100, "50");
+        MatchedTrade loss = sell(first, "2024-03-10", 100, "40");
+        Trade replacement = buy("2024-03-15", 40, "41");
+
+        detect();
+
+        assertThat(loss.getWashSaleDisallowed()).isEqualByComparingTo("400");
+        assertThat(loss.getStGainOrLoss()).isEqualByComparingTo("-600");
+        assertThat(replacement.getBasisAdjustment()).isEqualByComparingTo("400");
+    }
+
+    @Test
+    void washSaleOfReplacementSharesChainsTheLoss() {
+        Trade first = buy("2024-01-02", 100, "50");
+        MatchedTrade loss = sell(first, "2024-03-10", 100, "40");
+        Trade second = buy("2024-03-15", 100, "40");
+        MatchedTrade secondLoss = sell(second, "2024-04-01", 100, "35");
+        Trade third = buy("2024-04-10", 100, "35");
+
+        detect();
+
+        assertThat(loss.getWashSaleDisallowed()).isEqualByComparingTo("1000");
+        // the second sale loses its own 500 plus the 1000 carried in, all of it washed into the third lot
+        assertThat(secondLoss.getCostBasis()).isEqualByComparingTo("5000");
+        assertThat(secondLoss.getWashSaleDisallowed()).isEqualByComparingTo("1500");
+        assertThat(secondLoss.getStGainOrLoss()).isEqualByComparingTo("0");
+        assertThat(second.getBasisAdjustment()).isNull();
+        assertThat(third.getBasisAdjustment()).isEqualByComparingTo("1500");
+    }
+
+    @Test
+    void replacementSharesStillOpenKeepTheAdjustmentOnTheLot() {
+        Trade first = buy("2024-01-02", 100, "50");
+        MatchedTrade loss = sell(first, "2024-03-10", 100, "40");
+        Trade replacement = buy("2024-03-20", 100, "40");
+        sell(replacement, "2024-05-01", 60, "45");
+
+        detect();
+
+        assertThat(loss.getWashSaleDisallowed()).isEqualByComparingTo("1000");
+        // 60 of the 100 replacement shares were sold and took 600 with them; 40 are still held
+        assertThat(replacement.getBasisAdjustment()).isEqualByComparingTo("400");
+    }
+
+    @Test
+    void sharesSoldBeforeTheLossSaleAreNotReplacements() {
+        Trade first = buy("2024-01-02", 100, "50");
+        Trade inWindow = buy("2024-03-01", 100, "45");
+        MatchedTrade gain = sell(inWindow, "2024-03-05", 100, "46");
+        MatchedTrade loss = sell(first, "2024-03-10", 100, "40");
+
+        detect();
+
+        assertThat(loss.getWashSaleDisallowed()).isNull();
+        assertThat(loss.getStGainOrLoss()).isEqualByComparingTo("-1000");
+        assertThat(gain.getCostBasis()).isEqualByComparingTo("4500");
+        assertThat(inWindow.getBasisAdjustment()).isNull();
+    }
+
+    @Test
+    void gainIsNeverAdjusted() {
+        Trade first = buy("2024-01-02", 100, "40");
+        Trade inWindow = buy("2024-03-01", 100, "45");
+        MatchedTrade gain = sell(first, "2024-03-10", 100, "50");
+
+        detect();
+
+        assertThat(gain.getWashSaleDisallowed()).isNull();
+        assertThat(gain.getStGainOrLoss()).isEqualByComparingTo("1000");
+        assertThat(inWindow.getBasisAdjustment()).isNull();
+    }
+}
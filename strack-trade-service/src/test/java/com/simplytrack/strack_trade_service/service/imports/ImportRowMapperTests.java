@@ -0,0 +1,119 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import com.simplytrack.strack_trade_service.entity.StockTrade;
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** CSV statements through CsvRowReader and ImportRowMapper, as TradeImportService reads them. */
+class ImportRowMapperTests {
+
+    static List<List<String>> rows(String csv) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        CsvRowReader.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                (rowNumber, cells) -> rows.add(cells));
+        return rows;
+    }
+
+    @Test
+    void brokerHeadersAreDetectedWithoutAMapping() throws IOException {
+        List<List<String>> rows = rows("\uFEFFRun Date,Action,Symbol,Quantity,Price ($),Fees ($),Amount ($)\r\n"
+                + "01/02/2024,YOU BOUGHT,aapl,10,$150.00,0.50,\"($1,500.50)\"\r\n"
+                + "\r\n"
+                + "01/03/2024,YOU SOLD,AAPL,-4,151.25,,605.00\r\n");
+        ImportRowMapper mapper = new ImportRowMapper(rows.get(0), null);
+
+        assertThat(rows).hasSize(3);
+        Trade buy = mapper.toTrade(rows.get(1));
+        assertThat(buy).isInstanceOf(StockTrade.class);
+        assertThat(buy.getAction()).isEqualTo(ActionType.BUY);
+        assertThat(buy.getSymbol()).isEqualTo("AAPL");
+        assertThat(buy.getTradeDate()).isEqualTo(LocalDateTime.of(2024, 1, 2, 0, 0));
+        assertThat(buy.getQuantity()).isEqualByComparingTo("10");
+        assertThat(buy.getMatchedQtyLeft()).isEqualByComparingTo("10");
+        assertThat(buy.getPrice()).isEqualByComparingTo("150");
+        // the net amount is what the statement says; the difference from gross is the commission
+        assertThat(buy.getNetAmount()).isEqualByComparingTo("1500.50");
+        assertThat(buy.getCommission()).isEqualByComparingTo("0.50");
+        assertThat(buy.getFee()).isEqualByComparingTo("0");
+
+        Trade sell = mapper.toTrade(rows.get(2));
+        assertThat(sell.getAction()).isEqualTo(ActionType.SELL);
+        assertThat(sell.getQuantity()).isEqualByComparingTo("4");
+        assertThat(sell.getCommission()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void mappedColumnsImportOptionsInShares() throws IOException {
+        List<List<String>> rows = rows("Date,Type,Ticker,Contracts,Px,Comm,Misc\n"
+                + "2024-01-05,Buy to Open,-AAPL240119C150,2,3.50,1.30,0.02\n");
+        Map<String, String> mapping = Map.of("tradeDate", "date", "action", "Type", "symbol", "Ticker",
+                "quantity", "Contracts", "price", "Px", "commission", "Comm", "fee", "Misc", "netAmount", "");
+
+        Trade trade = new ImportRowMapper(rows.get(0), mapping).toTrade(rows.get(1));
+
+        assertThat(trade).isInstanceOf(OptionTrade.class);
+        OptionTrade option = (OptionTrade) trade;
+        assertThat(option.getUsymbol()).isEqualTo("AAPL240119C00150000");
+        assertThat(option.getSymbol()).isEqualTo("AAPL");
+        assertThat(option.getOptionType()).isEqualTo("CALL");
+        assertThat(option.getQuantity()).isEqualByComparingTo("200");
+        assertThat(option.getNetAmount()).isEqualByComparingTo("698.68");
+        assertThat(option.getCommission()).isEqualByComparingTo("1.30");
+        assertThat(option.getFee()).isEqualByComparingTo("0.02");
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<List<String>> rows = rows("Symbol,Note\n\"BRK.B\",\"held \"\"long\"\",\nsee memo\"\nMSFT,\n");
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(1)).containsExactly("BRK.B", "held \"long\",\nsee memo");
+        assertThat(rows.get(2)).containsExactly("MSFT", "");
+    }
+
+    @Test
+    void requiredFieldsMustBeMapped() {
+        List<String> header = List.of("Date", "Action", "Symbol");
+
+        assertThatThrownBy(() -> new ImportRowMapper(header, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No column mapped to required field \"quantity\"");
+        assertThatThrownBy(() -> new ImportRowMapper(header, Map.of("quantity", "Qty")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Column \"Qty\" not found");
+    }
+
+    @Test
+    void badRowsAreRejectedWithAMessage() {
+        ImportRowMapper mapper = new ImportRowMapper(List.of("Date", "Action", "Symbol", "Quantity", "Price"), null);
+
+        assertThatThrownBy(() -> mapper.toTrade(List.of("1/2/2024", "JOURNALED", "AAPL", "1", "1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown action \"JOURNALED\"");
+        assertThatThrownBy(() -> mapper.toTrade(List.of("1/2/2024", "BUY", "", "1", "1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Missing symbol");
+        assertThatThrownBy(() -> mapper.toTrade(List.of("1/2/2024", "BUY", "AAPL", "ten", "1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid number for quantity: ten");
+        assertThatThrownBy(() -> mapper.toTrade(List.of("1/2/2024", "BUY", "AAPL241331C00100000", "1", "1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid expiration date");
+        assertThatThrownBy(() -> mapper.toTrade(List.of("someday", "BUY", "AAPL", "1", "1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid date");
+    }
+}
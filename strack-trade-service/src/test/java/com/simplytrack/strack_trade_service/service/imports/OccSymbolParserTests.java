@@ -0,0 +1,92 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.entity.OptionTrade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OccSymbolParserTests {
+
+    @Test
+    void parsesTheOccForm() {
+        OccSymbolParser.OptionContract contract = OccSymbolParser.parse("AAPL240119C00150000");
+
+        assertThat(contract.symbol()).isEqualTo("AAPL240119C00150000");
+        assertThat(contract.root()).isEqualTo("AAPL");
+        assertThat(contract.expiration()).isEqualTo(LocalDate.of(2024, 1, 19));
+        assertThat(contract.optionType()).isEqualTo("CALL");
+        assertThat(contract.strike()).isEqualByComparingTo("150");
+    }
+
+    @Test
+    void shortFormsHaveTheCanonicalSymbol() {
+        assertThat(OccSymbolParser.parse("-AAPL240119C150").symbol()).isEqualTo("AAPL240119C00150000");
+        assertThat(OccSymbolParser.parse("aapl240119c150 ").symbol()).isEqualTo("AAPL240119C00150000");
+
+        OccSymbolParser.OptionContract put = OccSymbolParser.parse("SPY250321P452.5");
+        assertThat(put.symbol()).isEqualTo("SPY250321P00452500");
+        assertThat(put.optionType()).isEqualTo("PUT");
+        assertThat(put.strike()).isEqualByComparingTo("452.5");
+    }
+
+    @Test
+    void repeatedSymbolsReturnTheCachedContract() {
+        assertThat(OccSymbolParser.parse("MSFT240621C00400000"))
+                .isSameAs(OccSymbolParser.parse("MSFT240621C00400000"));
+    }
+
+    @Test
+    void stockTickersAreNotOptions() {
+        assertThat(OccSymbolParser.parse("AAPL")).isNull();
+        assertThat(OccSymbolParser.parse("BRK.B")).isNull();
+        assertThat(OccSymbolParser.parse("")).isNull();
+    }
+
+    @Test
+    void malformedSymbolsAreNotOptions() {
+        // more than 3 strike decimals, a strike past 8 digits, no root
+        assertThat(OccSymbolParser.parse("AAPL240119C150.1234")).isNull();
+        assertThat(OccSymbolParser.parse("AAPL240119C123456789")).isNull();
+        assertThat(OccSymbolParser.parse("240119C00150000")).isNull();
+    }
+
+    @Test
+    void impossibleExpirationIsNullForParseAndAnErrorWhenChecked() {
+        assertThat(OccSymbolParser.parse("AAPL241331C00100000")).isNull();
+
+        assertThatThrownBy(() -> OccSymbolParser.parseChecked("AAPL241331C00100000"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid expiration date");
+        assertThat(OccSymbolParser.parseChecked("AAPL")).isNull();
+    }
+
+    @Test
+    void populateSetsTheOptionFields() {
+        OptionTrade trade = new OptionTrade();
+        trade.setUsymbol("-TSLA240315P200");
+
+        OccSymbolParser.populate(trade);
+
+        assertThat(trade.getUsymbol()).isEqualTo("TSLA240315P00200000");
+        assertThat(trade.getSymbol()).isEqualTo("TSLA");
+        assertThat(trade.getOptionType()).isEqualTo("PUT");
+        assertThat(trade.getExpirationDate()).isEqualTo(LocalDateTime.of(2024, 3, 15, 0, 0));
+        assertThat(BigDecimal.valueOf(trade.getStrikePrice())).isEqualByComparingTo("200");
+        assertThat(trade.getSharesPerContract()).isEqualTo(100.0);
+    }
+
+    @Test
+    void populateRejectsInvalidSymbols() {
+        OptionTrade trade = new OptionTrade();
+        trade.setUsymbol("AAPL");
+
+        assertThatThrownBy(() -> OccSymbolParser.populate(trade))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid OCC option symbol");
+    }
+}
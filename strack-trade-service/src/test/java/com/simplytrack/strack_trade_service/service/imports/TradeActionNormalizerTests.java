@@ -0,0 +1,45 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeActionNormalizerTests {
+
+    @Test
+    void exactPhrasesIgnoreCaseAndSpacing() {
+        assertThat(TradeActionNormalizer.normalize("BUY")).isEqualTo(ActionType.BUY);
+        assertThat(TradeActionNormalizer.normalize("  sell   to   close ")).isEqualTo(ActionType.SELL);
+        assertThat(TradeActionNormalizer.normalize("Buy to Cover")).isEqualTo(ActionType.COVER);
+        assertThat(TradeActionNormalizer.normalize("sell to open")).isEqualTo(ActionType.SHORT);
+    }
+
+    @Test
+    void shortCodesOnlyMatchExactly() {
+        assertThat(TradeActionNormalizer.normalize("S")).isEqualTo(ActionType.SELL);
+        assertThat(TradeActionNormalizer.normalize("BC")).isEqualTo(ActionType.COVER);
+        assertThat(TradeActionNormalizer.normalize("ABC")).isNull();
+    }
+
+    @Test
+    void longestContainedPhraseWins() {
+        assertThat(TradeActionNormalizer.normalize("SELL SHORT 100 @ 12")).isEqualTo(ActionType.SHORT);
+        assertThat(TradeActionNormalizer.normalize("CLOSE LONG POSITION")).isEqualTo(ActionType.SELL);
+        assertThat(TradeActionNormalizer.normalize("YOU SOLD OPENING TRANSACTION")).isEqualTo(ActionType.SHORT);
+        assertThat(TradeActionNormalizer.normalize("YOU BOUGHT CLOSING TRANSACTION")).isEqualTo(ActionType.COVER);
+    }
+
+    @Test
+    void dividendReinvestmentsAreBuys() {
+        assertThat(TradeActionNormalizer.normalize("DIVIDEND RECEIVED")).isEqualTo(ActionType.BUY);
+        assertThat(TradeActionNormalizer.normalize("DIV REINV")).isEqualTo(ActionType.BUY);
+    }
+
+    @Test
+    void unknownActionsAreNull() {
+        assertThat(TradeActionNormalizer.normalize(null)).isNull();
+        assertThat(TradeActionNormalizer.normalize("   ")).isNull();
+        assertThat(TradeActionNormalizer.normalize("JOURNALED")).isNull();
+    }
+}
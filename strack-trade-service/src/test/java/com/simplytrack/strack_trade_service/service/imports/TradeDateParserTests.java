@@ -0,0 +1,52 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TradeDateParserTests {
+
+    private static final LocalDateTime JAN_5 = LocalDateTime.of(2024, 1, 5, 0, 0);
+
+    @Test
+    void parsesTheBrokerDateFormats() {
+        assertThat(new TradeDateParser().parse("01/05/2024")).isEqualTo(JAN_5);
+        assertThat(new TradeDateParser().parse("1/5/24")).isEqualTo(JAN_5);
+        assertThat(new TradeDateParser().parse("2024-01-05")).isEqualTo(JAN_5);
+        assertThat(new TradeDateParser().parse("5-JAN-2024")).isEqualTo(JAN_5);
+        assertThat(new TradeDateParser().parse("20240105")).isEqualTo(JAN_5);
+        assertThat(new TradeDateParser().parse("Fri, Jan 5 2024")).isEqualTo(JAN_5);
+        assertThat(new TradeDateParser().parse(" 1/5/2024 9:30 ")).isEqualTo(JAN_5.withHour(9).withMinute(30));
+        assertThat(new TradeDateParser().parse("Friday, Jan 5, 2024 09:30:15"))
+                .isEqualTo(LocalDateTime.of(2024, 1, 5, 9, 30, 15));
+        assertThat(new TradeDateParser().parse("2024-01-05T09:30:00")).isEqualTo(JAN_5.withHour(9).withMinute(30));
+    }
+
+    @Test
+    void offsetTimesAreStoredInUtc() {
+        assertThat(new TradeDateParser().parse("2024-01-05T21:30:00-05:00"))
+                .isEqualTo(LocalDateTime.of(2024, 1, 6, 2, 30));
+    }
+
+    @Test
+    void theRememberedFormatDoesNotMisreadTheNextRow() {
+        TradeDateParser parser = new TradeDateParser();
+
+        assertThat(parser.parse("1/5/24")).isEqualTo(JAN_5);
+        assertThat(parser.parse("1/5/2024")).isEqualTo(JAN_5);
+        assertThat(parser.parse("20240105")).isEqualTo(JAN_5);
+        assertThat(parser.parse("1/6/24")).isEqualTo(JAN_5.plusDays(1));
+    }
+
+    @Test
+    void unknownFormatsAreRejected() {
+        assertThatThrownBy(() -> new TradeDateParser().parse("next tuesday"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid date: next tuesday");
+        assertThatThrownBy(() -> new TradeDateParser().parse("13/05/2024"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.simplytrack.strack_trade_service.service.imports;
+
+import com.simplytrack.strack_trade_service.entity.Trade;
+import com.simplytrack.strack_trade_service.types.ActionType;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** XLSX statements through XlsxRowReader and ImportRowMapper, as TradeImportService reads them. */
+class XlsxRowReaderTests {
+
+    private static List<List<String>> rows(XSSFWorkbook workbook) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workbook.write(out);
+        List<List<String>> rows = new ArrayList<>();
+        XlsxRowReader.read(new ByteArrayInputStream(out.toByteArray()), (rowNumber, cells) -> rows.add(cells));
+        return rows;
+    }
+
+    @Test
+    void datesAndNumbersImportAsExcelShowsThem() throws IOException {
+        List<List<String>> rows;
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Trades");
+            CellStyle date = workbook.createCellStyle();
+            // built-in format 14, m/d/yy
+            date.setDataFormat((short) 14);
+            Row header = sheet.createRow(0);
+            String[] columns = {"Trade Date", "Action", "Symbol", "Quantity", "Price", "Commission"};
+            for (int i = 0; i < columns.length; i++) {
+                header.createCell(i).setCellValue(columns[i]);
+            }
+            Row row = sheet.createRow(2);
+            row.createCell(0).setCellValue(LocalDate.of(2024, 1, 2));
+            row.getCell(0).setCellStyle(date);
+            row.createCell(1).setCellValue("Sell Short");
+            row.createCell(2).setCellValue("TSLA");
+            row.createCell(3).setCellValue(25);
+            row.createCell(4).setCellValue(240.5);
+            // no commission cell at all, and a blank row above: both are skipped in the sheet XML
+            rows = rows(workbook);
+        }
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1)).containsExactly("1/2/24", "Sell Short", "TSLA", "25", "240.5");
+
+        Trade trade = new ImportRowMapper(rows.get(0), null).toTrade(rows.get(1));
+        assertThat(trade.getAction()).isEqualTo(ActionType.SHORT);
+        assertThat(trade.getTradeDate()).isEqualTo(LocalDateTime.of(2024, 1, 2, 0, 0));
+        assertThat(trade.getQuantity()).isEqualByComparingTo("25");
+        assertThat(trade.getCommission()).isEqualByComparingTo("0");
+        assertThat(trade.getNetAmount()).isEqualByComparingTo("6012.5");
+    }
+
+    @Test
+    void gapsBetweenCellsArePadded() throws IOException {
+        List<List<String>> rows;
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(0).setCellValue("A");
+            row.createCell(3).setCellValue("D");
+            rows = rows(workbook);
+        }
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0)).containsExactly("A", "", "", "D");
+    }
+}
@@ -0,0 +1,56 @@
+package com.simplytrack.strack_user_auth.config;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Lets at most a fixed number of BCrypt hashes run at once. BCrypt is pure CPU, so running more
+ * hashes than there are cores only adds latency. On virtual threads a burst of logins would
+ * otherwise occupy every carrier thread and stall the cheap requests (refresh, JWKS) behind them;
+ * waiting on the semaphore parks the virtual thread instead.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Semaphore permits;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int maxConcurrent) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        acquire();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        acquire();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private void acquire() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to hash a password", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.simplytrack.strack_user_auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// JwtKeyProperties**: RSA signing keys bound from `jwt.keys`. Every key is published in the JWKS,
+// only `jwt.active-kid` signs new tokens. Rotate by adding the new key, switching active-kid,
+// and dropping the old key once the tokens it signed have expired.
+
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtKeyProperties {
+
+    private String activeKid;
+    private List<SigningKey> keys = new ArrayList<>();
+
+    public String getActiveKid() {
+        return this.activeKid;
+    }
+
+    public void setActiveKid(String activeKid) {
+        this.activeKid = activeKid;
+    }
+
+    public List<SigningKey> getKeys() {
+        return this.keys;
+    }
+
+    public void setKeys(List<SigningKey> keys) {
+        this.keys = keys;
+    }
+
+    public static class SigningKey {
+        private String kid;
+        /** base64 (or PEM) PKCS#8 RSA private key; may be omitted for a retired, verify-only key */
+        private String privateKey;
+        /** base64 (or PEM) X.509 RSA public key; derived from the private key when omitted */
+        private String publicKey;
+
+        public String getKid() {
+            return this.kid;
+        }
+
+        public void setKid(String kid) {
+            this.kid = kid;
+        }
+
+        public String getPrivateKey() {
+            return this.privateKey;
+        }
+
+        public void setPrivateKey(String privateKey) {
+            this.privateKey = privateKey;
+        }
+
+        public String getPublicKey() {
+            return this.publicKey;
+        }
+
+        public void setPublicKey(String publicKey) {
+            this.publicKey = publicKey;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.simplytrack.strack_user_auth.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// JwtSigningKeys**: Holds the RSA key pairs used for RS256 token signing. Keys are decoded once at startup,
+// looked up by `kid` during verification, and rendered as the JWKS served to the other services.
+
+@Component
+public class JwtSigningKeys extends SigningKeyResolverAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtSigningKeys.class);
+
+    private final Map<String, RSAPublicKey> publicKeys = new LinkedHashMap<>();
+    private final String activeKid;
+    private final RSAPrivateCrtKey activePrivateKey;
+    private final Map<String, Object> jwks;
+
+    public JwtSigningKeys(JwtKeyProperties properties) throws GeneralSecurityException {
+        KeyFactory rsa = KeyFactory.getInstance("RSA");
+        Map<String, RSAPrivateCrtKey> privateKeys = new LinkedHashMap<>();
+
+        for (JwtKeyProperties.SigningKey key : properties.getKeys()) {
+            RSAPrivateCrtKey privateKey = null;
+            if (key.getPrivateKey() != null) {
+                privateKey = (RSAPrivateCrtKey) rsa.generatePrivate(new PKCS8EncodedKeySpec(decode(key.getPrivateKey())));
+                privateKeys.put(key.getKid(), privateKey);
+            }
+            RSAPublicKey publicKey = key.getPublicKey() != null
+                    ? (RSAPublicKey) rsa.generatePublic(new X509EncodedKeySpec(decode(key.getPublicKey())))
+                    : (RSAPublicKey) rsa.generatePublic(
+                            new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent()));
+            publicKeys.put(key.getKid(), publicKey);
+        }
+
+        if (privateKeys.isEmpty()) {
+            // No keys configured: generate a throwaway pair so local runs work. Tokens will not survive a restart.
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair pair = generator.generateKeyPair();
+            String kid = "ephemeral-" + UUID.randomUUID();
+            privateKeys.put(kid, (RSAPrivateCrtKey) pair.getPrivate());
+            publicKeys.put(kid, (RSAPublicKey) pair.getPublic());
+            log.warn("No jwt.keys configured, signing with ephemeral key {}", kid);
+        }
+
+        this.activeKid = properties.getActiveKid() != null
+                ? properties.getActiveKid()
+                : privateKeys.keySet().iterator().next();
+        this.activePrivateKey = privateKeys.get(activeKid);
+        if (activePrivateKey == null) {
+            throw new IllegalStateException("jwt.active-kid '" + activeKid + "' has no private key");
+        }
+        this.jwks = buildJwks();
+    }
+
+    public String getActiveKid() {
+        return this.activeKid;
+    }
+
+    public Key getActivePrivateKey() {
+        return this.activePrivateKey;
+    }
+
+    public Key getPublicKey(String kid) {
+        return publicKeys.get(kid);
+    }
+
+    /** JWK Set document, built once since the key set never changes at runtime */
+    public Map<String, Object> getJwks() {
+        return this.jwks;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        Key key = publicKeys.get(header.getKeyId());
+        if (key == null) {
+            throw new JwtException("Unknown signing key id: " + header.getKeyId());
+        }
+        return key;
+    }
+
+    private Map<String, Object> buildJwks() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", "RS256");
+            jwk.put("n", encoder.encodeToString(unsigned(key.getModulus().toByteArray())));
+            jwk.put("e", encoder.encodeToString(unsigned(key.getPublicExponent().toByteArray())));
+            keys.add(jwk);
+        });
+        return Map.of("keys", List.copyOf(keys));
+    }
+
+    // BigInteger.toByteArray() may prepend a sign byte; JWK values are unsigned big-endian
+    private static byte[] unsigned(byte[] bytes) {
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return bytes;
+    }
+
+    private static byte[] decode(String material) {
+        String base64 = material
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
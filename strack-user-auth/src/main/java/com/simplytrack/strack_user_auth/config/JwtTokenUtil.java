@@ -1,41 +1,66 @@
 package com.simplytrack.strack_user_auth.config;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtSigningKeys signingKeys;
+    private final JwtParser parser;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    public JwtTokenUtil(JwtSigningKeys signingKeys) {
+        this.signingKeys = signingKeys;
+        // JwtParser is immutable and thread-safe, so build it once instead of per request
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(signingKeys)
+                .build();
+    }
+
     public String generateToken(UserDetails userDetails) {
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return generateToken(userDetails.getUsername(), roles);
+    }
+
+    public String generateToken(String username, Collection<String> roles) {
         Map<String, Object> claims = new HashMap<>();
-        // Add user roles to claims
-        claims.put("roles", userDetails.getAuthorities());
-        
+        // One space-delimited string without the ROLE_ prefix, e.g. "USER ADMIN"
+        claims.put("roles", compactRoles(roles));
+
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKeys.getActiveKid())
                 .setClaims(claims)
-                .setSubject(userDetails.getUsername())
+                .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKeys.getActivePrivateKey(), SignatureAlgorithm.RS256)
                 .compact();
     }
 
+    static String compactRoles(Collection<String> roles) {
+        StringJoiner joiner = new StringJoiner(" ");
+        for (String role : roles) {
+            joiner.add(role.startsWith("ROLE_") ? role.substring(5) : role);
+        }
+        return joiner.toString();
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
         final String username = getUsernameFromToken(token);
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
@@ -55,9 +80,7 @@ public class JwtTokenUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
@@ -66,9 +89,4 @@ public class JwtTokenUtil {
         final Date expiration = getExpirationDateFromToken(token);
         return expiration.before(new Date());
     }
-
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
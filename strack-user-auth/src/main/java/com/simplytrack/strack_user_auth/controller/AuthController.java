@@ -2,10 +2,14 @@ package com.simplytrack.strack_user_auth.controller;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 // import com.example.strack_user_auth.dto.AuthRequest;
 // import com.example.strack_user_auth.dto.AuthResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,11 +24,14 @@ import org.springframework.web.bind.annotation.RestController;
 import com.simplytrack.strack_user_auth.config.JwtTokenUtil;
 import com.simplytrack.strack_user_auth.entity.User;
 import com.simplytrack.strack_user_auth.repository.UserRepository;
+import com.simplytrack.strack_user_auth.service.RefreshTokenService;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -37,6 +44,9 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody User user) {
         Authentication authentication = authenticationManager.authenticate(
@@ -45,18 +55,52 @@ public class AuthController {
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String token = jwtTokenUtil.generateToken(userDetails);
+        User account = userRepository.findByEmail(user.getEmail()).orElseThrow();
         Map<String, String> response = new HashMap<>();
         response.put("token", token);
+        response.put("refreshToken", refreshTokenService.issue(account));
         response.put("status", "success");
         response.put("user", userDetails.getUsername());
         return ResponseEntity.ok().body(response);
         
         // return ResponseEntity.ok(token);
     }
+
+    /**
+     * POST /api/auth/refresh
+     * Trades a refresh token for a new access token and a new refresh token (the old one is consumed).
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> request) {
+        String refreshToken = request.get("refreshToken");
+        if (refreshToken == null) {
+            return ResponseEntity.badRequest().body("refreshToken is required");
+        }
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(refreshToken);
+        if (rotation.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired refresh token");
+        }
+
+        User account = rotation.get().user();
+        Map<String, String> response = new HashMap<>();
+        response.put("token", jwtTokenUtil.generateToken(account.getUsername(), account.getRoles()));
+        response.put("refreshToken", rotation.get().refreshToken());
+        response.put("status", "success");
+        response.put("user", account.getUsername());
+        return ResponseEntity.ok().body(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody Map<String, String> request) {
+        String refreshToken = request.get("refreshToken");
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+        return ResponseEntity.ok().build();
+    }
     
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user) {
-        System.out.println(user);
         if (userRepository.existsByEmail(user.getEmail())) {
             return ResponseEntity.badRequest().body("Email already exists");
         }
@@ -64,7 +108,8 @@ public class AuthController {
         // Encode password before saving
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         userRepository.save(user);
-        
+        log.debug("Registered user {}", user.getEmail());
+
         return ResponseEntity.ok("User registered successfully");
     }
 }
\ No newline at end of file
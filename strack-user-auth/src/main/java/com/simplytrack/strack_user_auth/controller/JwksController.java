@@ -0,0 +1,34 @@
+package com.simplytrack.strack_user_auth.controller;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.simplytrack.strack_user_auth.config.JwtSigningKeys;
+
+@RestController
+@RequestMapping("/api/auth")
+public class JwksController {
+
+    private final JwtSigningKeys signingKeys;
+
+    public JwksController(JwtSigningKeys signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    /**
+     * GET /api/auth/.well-known/jwks.json
+     * Public keys other services use to verify tokens; they cache it and refetch on an unknown kid.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(signingKeys.getJwks());
+    }
+}
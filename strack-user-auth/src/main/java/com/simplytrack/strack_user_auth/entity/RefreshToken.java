@@ -0,0 +1,62 @@
+package com.simplytrack.strack_user_auth.entity;
+
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+
+
+// Only a SHA-256 hash of the opaque token is stored; rows are deleted when the token is rotated or revoked.
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "ux_refresh_tokens_hash", columnList = "token_hash", unique = true),
+    @Index(name = "ix_refresh_tokens_user", columnList = "user_id")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, length = 43)
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,91 @@
+package com.simplytrack.strack_user_auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.simplytrack.strack_user_auth.entity.RefreshToken;
+import com.simplytrack.strack_user_auth.entity.User;
+import com.simplytrack.strack_user_auth.repository.RefreshTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and rotates opaque refresh tokens. Renewing an access token is a hash lookup plus a delete,
+ * so it never goes back through BCrypt. Each refresh token is single use: redeeming it deletes the row
+ * and hands out a new one.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:2592000000}")
+    private Long refreshExpiration;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    @Transactional
+    public String issue(User user) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String rawToken = ENCODER.encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setUser(user);
+        refreshToken.setExpiresAt(Instant.now().plusMillis(refreshExpiration));
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    @Transactional
+    public Optional<Rotation> rotate(String rawToken) {
+        String tokenHash = hash(rawToken);
+        Optional<RefreshToken> stored = refreshTokenRepository.findByTokenHash(tokenHash);
+        // The delete count decides races: when the same token is redeemed twice concurrently only one wins
+        if (stored.isEmpty() || refreshTokenRepository.deleteByTokenHash(tokenHash) == 0) {
+            return Optional.empty();
+        }
+        if (stored.get().getExpiresAt().isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        User user = stored.get().getUser();
+        return Optional.of(new Rotation(user, issue(user)));
+    }
+
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.deleteByTokenHash(hash(rawToken));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-purge-interval:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ENCODER.encodeToString(digest.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}